@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import utility.DynamicArrayOfBoolean;
+import utility.DynamicArrayOfDouble;
+
+/**
+ * Scores and labels read from a CSV file with a header line and the columns
+ * id, score, label (1 for an active, anything else for a decoy), as in
+ * data/dud_egfr.csv
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class DataSet {
+
+    private final double[] scores;
+    private final boolean[] lables;
+
+    /**
+     *
+     * @param scores {-99.9,90.0,-98.0}
+     * @param lables {true,false,true....}
+     */
+    public DataSet(double[] scores, boolean[] lables) {
+        this.scores = scores;
+        this.lables = lables;
+    }
+
+    /**
+     *
+     * @param file CSV file
+     * @return data set
+     * @throws IOException
+     */
+    public static DataSet read(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     *
+     * @param reader CSV content
+     * @return data set
+     * @throws IOException
+     * @throws NumberFormatException if a score or label cannot be parsed; the
+     * message gives the line number but not the content of the line
+     */
+    public static DataSet read(Reader reader) throws IOException {
+        DynamicArrayOfDouble energy = new DynamicArrayOfDouble();
+        DynamicArrayOfBoolean flags = new DynamicArrayOfBoolean();
+
+        int index = 0;
+        int lineNumber = 1;
+        BufferedReader br = new BufferedReader(reader);
+        String header = br.readLine();
+        String line;
+        String cvsSplitBy = ",";
+
+        while ((line = br.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] columns = line.split(cvsSplitBy);
+            if (columns.length < 3) {
+                throw new NumberFormatException("Expected id,score,label at line " + lineNumber);
+            }
+            try {
+                energy.put(index, Double.parseDouble(columns[1].trim()));
+                flags.put(index, Integer.parseInt(columns[2].trim()) == 1);
+            } catch (NumberFormatException ex) {
+                throw new NumberFormatException("Malformed score or label at line " + lineNumber);
+            }
+            index++;
+        }
+        if (index == 0) {
+            return new DataSet(new double[0], new boolean[0]);
+        }
+        return new DataSet(energy.getArray(), flags.getArray());
+    }
+
+    /**
+     *
+     * @return scores
+     */
+    public double[] getScores() {
+        return scores;
+    }
+
+    /**
+     *
+     * @return labels
+     */
+    public boolean[] getLables() {
+        return lables;
+    }
+
+    /**
+     *
+     * @return number of compounds
+     */
+    public int size() {
+        return scores.length;
+    }
+}
@@ -25,13 +25,21 @@
  */
 package enrichvs;
 
+import enrichvs.metrics.AUACAccumulator;
+import enrichvs.metrics.AUCAccumulator;
+import enrichvs.metrics.BEDROCAccumulator;
+import enrichvs.metrics.EnrichmentFactorAccumulator;
+import enrichvs.metrics.LogAUCAccumulator;
+import enrichvs.metrics.MetricAccumulator;
+import enrichvs.metrics.PRAUCAccumulator;
+import enrichvs.metrics.RIEAccumulator;
+import enrichvs.metrics.ROCEnrichmentAccumulator;
+import enrichvs.metrics.SumLogRankAccumulator;
+import enrichvs.metrics.TiePolicy;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
-import org.apache.commons.math3.stat.ranking.NaNStrategy;
-import org.apache.commons.math3.stat.ranking.NaturalRanking;
-import org.apache.commons.math3.stat.ranking.TiesStrategy;
 
 /**
  * Java code for enrichvs package in R
@@ -45,6 +53,17 @@ public class EnrichmentAssessment {
     private final double top = 0.05d;
     private final double[] scores;
     private final boolean[] lables;
+    private final ResultCache cache;
+    /*
+     * Published once per direction; readers do not lock, and the ranking of
+     * one direction does not block queries on the other
+     */
+    private volatile TieGroupIndex increasing;
+    private volatile TieGroupIndex decreasing;
+    private volatile String increasingKey;
+    private volatile String decreasingKey;
+    private final ReentrantLock increasingLock = new ReentrantLock();
+    private final ReentrantLock decreasingLock = new ReentrantLock();
     private final boolean DEBUG = false;
 
     /**
@@ -53,127 +72,308 @@ public class EnrichmentAssessment {
      * @param lables {true,false,true....}
      */
     public EnrichmentAssessment(double[] scores, boolean[] lables) {
-        this.scores = scores;
-        this.lables = lables;
+        this(scores, lables, null);
     }
 
-    /*
-     * Calculate a RIE for the highly-ranked compounds
-     * Ref.: Truchon et al. Evaluating Virtual Screening Methods: 
-     * Good and Bad Metrics for the "Early Recognition" Problem.
-     * J. Chem. Inf. Model. (2007) 47, 488-508.
+    /**
+     *
+     * @param scores {-99.9,90.0,-98.0}
+     * @param lables {true,false,true....}
+     * @param cache persistent cache of rankings and metric values, or null
      */
+    public EnrichmentAssessment(double[] scores, boolean[] lables, ResultCache cache) {
+        this.scores = scores;
+        this.lables = lables;
+        this.cache = cache;
+    }
 
     /**
-     * Function to culculate the Robust Initial Enhancement (RIE)
-     * @param alpha coefficient alpha
+     * Evaluates any combination of metrics with one sort and one ranked pass
+     * over the compounds, e.g.
+     * <pre>
+     * double[] v = ea.evaluate(false, new BEDROCAccumulator(20.0), new AUCAccumulator(1.0));
+     * </pre>
+     * The ranking is computed once per direction and kept for later calls, so
+     * an instance can be queried concurrently as a ranked view of its data.
+     *
      * @param decreasing TRUE if the compounds are ranked by decreasing score
-     * @return RIE, in the range from 0 to +Inf.
+     * @param metrics accumulators fed by the shared traversal
+     * @return metric values, in the order of the accumulators
      */
-    
-    public double rie(double alpha, boolean decreasing) {
+    public double[] evaluate(boolean decreasing, MetricAccumulator... metrics) {
+        double[] values = new double[metrics.length];
         if (scores.length != lables.length) {
             System.err.println("The number of scores must be equal to the number of labels.");
-            return -1.0f;
+            Arrays.fill(values, -1.0d);
+            return values;
         }
 
-        double N = lables.length;
-        if (DEBUG) {
-            System.err.println("N: " + N);
-        }
-        double n = getPositiveHitsCount(lables);
-        if (DEBUG) {
-            System.err.println("n: " + n);
-        }
-        int[] order;
-        if (decreasing) {
-            order = getDecreasingOdering(scores);
-        } else {
-            order = getIncreasingOdering(scores);
-        }
-        if (DEBUG) {
-            System.err.println("Rank order: " + order.length);
-        }
-        int[] m_rank = getPositiveHitsRankedIndex(order, lables);
-        if (DEBUG) {
-            System.err.println("m_rank: " + m_rank.length);
+        String key = null;
+        String[] metricKeys = null;
+        if (cache != null) {
+            key = getCacheKey(decreasing);
+            metricKeys = new String[metrics.length];
+            for (int i = 0; i < metrics.length; i++) {
+                metricKeys[i] = metrics[i].key();
+            }
+            double[] cached = cache.getMetrics(key, metricKeys);
+            if (cached != null) {
+                return cached;
+            }
         }
-
-        double s = 0.0;
-        for (int i = 0; i < n; i++) {
-            s += Math.exp(-alpha * m_rank[i] / N);
+        traverse(getTieGroups(decreasing), null, metrics);
+        for (int i = 0; i < metrics.length; i++) {
+            values[i] = metrics[i].value();
         }
-        if (DEBUG) {
-            System.err.println("Sum: " + s);
+        if (cache != null) {
+            cache.putMetrics(key, metricKeys, values);
         }
-        double random_sum = (n / N) * (1 - Math.exp(-alpha)) / (Math.exp(alpha / N) - 1);
-        return (s / random_sum);
+        return values;
     }
 
-
-    /*
-     * Calculate a BEDROC for the highly-ranked compounds
-     * Ref.: Truchon et al. Evaluating Virtual Screening Methods: 
-     * Good and Bad Metrics for the "Early Recognition" Problem.
-     * J. Chem. Inf. Model. (2007) 47, 488-508.
+    /**
+     * Ranks the compounds in the given direction ahead of the first query, so
+     * that later calls do not pay for the sort
+     *
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
      */
+    public void rank(boolean decreasing) {
+        if (scores.length == lables.length) {
+            getTieGroups(decreasing);
+        }
+    }
 
     /**
-     * Boltzmann-Enhanced Discrimination of ROC (BEDROC)
-     * @param alpha coefficient alpha
+     * Bootstrap distribution of the metrics: every replicate resamples the
+     * compounds with replacement and is evaluated in one pass over the
+     * existing ranking (copies of a compound are ties), without sorting again.
+     *
      * @param decreasing TRUE if the compounds are ranked by decreasing score
-     * @return BEDROC, in the range from 0 to 1.
+     * @param replicates number of bootstrap samples
+     * @param seed seed of the resampling
+     * @param metrics accumulators, reused for every replicate
+     * @return metric values, indexed by replicate then accumulator
      */
-    
-    public double bedroc(double alpha, boolean decreasing) {
+    public double[][] bootstrap(boolean decreasing, int replicates, long seed, MetricAccumulator... metrics) {
+        double[][] values = new double[replicates][metrics.length];
         if (scores.length != lables.length) {
             System.err.println("The number of scores must be equal to the number of labels.");
-            return -1.0f;
+            for (double[] v : values) {
+                Arrays.fill(v, -1.0d);
+            }
+            return values;
+        }
+        int N = lables.length;
+        TieGroupIndex index = getTieGroups(decreasing);
+        int[] weights = new int[N];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int r = 0; r < replicates; r++) {
+            Arrays.fill(weights, 0);
+            for (int i = 0; i < N; i++) {
+                weights[random.nextInt(N)]++;
+            }
+            traverse(index, weights, metrics);
+            for (int k = 0; k < metrics.length; k++) {
+                values[r][k] = metrics[k].value();
+            }
         }
-        double N = lables.length;
-        if (DEBUG) {
-            System.err.println("N: " + N);
+        return values;
+    }
+
+    /*
+     * Content key of the data for the direction, hashed once per instance;
+     * null without a cache
+     */
+    private String getCacheKey(boolean decreasing) {
+        if (cache == null) {
+            return null;
+        }
+        String key = decreasing ? decreasingKey : increasingKey;
+        if (key != null) {
+            return key;
+        }
+        ReentrantLock lock = decreasing ? decreasingLock : increasingLock;
+        lock.lock();
+        try {
+            key = decreasing ? decreasingKey : increasingKey;
+            if (key == null) {
+                key = ResultCache.key(scores, lables, decreasing);
+                if (decreasing) {
+                    decreasingKey = key;
+                } else {
+                    increasingKey = key;
+                }
+            }
+            return key;
+        } finally {
+            lock.unlock();
         }
-        double n = getPositiveHitsCount(lables);
-        if (DEBUG) {
-            System.err.println("n: " + n);
+    }
+
+    /*
+     * Ranking and tie groups for the direction, from memory, the result cache
+     * or a sort. Only the first call per direction takes the lock (a
+     * ReentrantLock, which unlike a monitor does not pin a virtual thread
+     * while it waits)
+     */
+    private TieGroupIndex getTieGroups(boolean decreasing) {
+        TieGroupIndex index = decreasing ? this.decreasing : this.increasing;
+        if (index != null) {
+            return index;
+        }
+        ReentrantLock lock = decreasing ? decreasingLock : increasingLock;
+        lock.lock();
+        try {
+            index = decreasing ? this.decreasing : this.increasing;
+            if (index == null) {
+                index = buildTieGroups(decreasing, getCacheKey(decreasing));
+            }
+            return index;
+        } finally {
+            lock.unlock();
         }
-        int[] order;
-        if (decreasing) {
-            order = getDecreasingOdering(scores);
+    }
+
+    private TieGroupIndex buildTieGroups(boolean decreasing, String key) {
+        TieGroupIndex index;
+        int[] order = key == null ? null : cache.getRanking(key, lables.length);
+        if (order != null) {
+            index = TieGroupIndex.fromOrder(order, scores, lables);
         } else {
-            order = getIncreasingOdering(scores);
+            index = TieGroupIndex.build(scores, lables, decreasing);
+            if (key != null) {
+                cache.putRanking(key, index.getOrder());
+            }
         }
         if (DEBUG) {
-            System.err.println("Rank order: " + order.length);
+            System.err.println("Tie groups: " + index.groups());
         }
-        int[] m_rank = getPositiveHitsRankedIndex(order, lables);
-        if (DEBUG) {
-            System.err.println("m_rank: " + m_rank.length);
+        if (decreasing) {
+            this.decreasing = index;
+        } else {
+            this.increasing = index;
         }
+        return index;
+    }
 
-        double s = 0.0;
-        for (int i = 0; i < n; i++) {
-            s += Math.exp(-alpha * m_rank[i] / N);
+    /*
+     * Walks the tie groups once and feeds every accumulator that still needs
+     * data. Stops as soon as all are done. Optional weights give the number
+     * of copies of every compound.
+     */
+    private void traverse(TieGroupIndex index, int[] weights, MetricAccumulator[] metrics) {
+        int[] order = index.getOrder();
+        int N = lables.length;
+        int n = 0;
+        if (weights == null) {
+            n = getPositiveHitsCount(lables);
+        } else {
+            for (int j = 0; j < N; j++) {
+                if (lables[j]) {
+                    n += weights[j];
+                }
+            }
         }
         if (DEBUG) {
-            System.err.println("Sum: " + s);
+            System.err.println("N: " + N + " n: " + n);
+        }
+
+        MetricAccumulator[] live = metrics.clone();
+        int liveCount = live.length;
+        for (MetricAccumulator m : live) {
+            m.begin(N, n);
+        }
+
+        int rank = 0;
+        for (int g = 0; g < index.groups() && liveCount > 0; g++) {
+            int position = rank;
+            int end = index.start(g) + index.size(g);
+            int tp = 0, fp = 0;
+            if (weights == null) {
+                tp = index.actives(g);
+                fp = index.size(g) - tp;
+                if (tp > 0) {
+                    for (int i = index.start(g); i < end; i++) {
+                        if (lables[order[i]]) {
+                            for (int k = 0; k < liveCount; k++) {
+                                live[k].active(i + 1);
+                            }
+                        }
+                    }
+                }
+                rank += tp + fp;
+            } else {
+                for (int i = index.start(g); i < end; i++) {
+                    int j = order[i];
+                    int w = weights[j];
+                    if (lables[j]) {
+                        tp += w;
+                        for (int c = 0; c < w; c++) {
+                            rank++;
+                            for (int k = 0; k < liveCount; k++) {
+                                live[k].active(rank);
+                            }
+                        }
+                    } else {
+                        fp += w;
+                        rank += w;
+                    }
+                }
+                if (tp + fp == 0) {
+                    continue;
+                }
+            }
+
+            for (int k = 0; k < liveCount; k++) {
+                live[k].tieGroup(position, tp, fp);
+                if (live[k].isDone()) {
+                    live[k--] = live[--liveCount];
+                }
+            }
         }
-        double ra = n / N;
-        double ri = (N - n) / N;
+    }
 
-        double random_sum = ra * Math.exp(-alpha / N) * (1.0 - Math.exp(-alpha)) / (1.0 - Math.exp(-alpha / N));
-        double fac = ra * Math.sinh(alpha / 2.0) / (Math.cosh(alpha / 2.0) - Math.cosh(alpha / 2.0 - alpha * ra));
-        double cte = 1.0 / (1 - Math.exp(alpha * ri));
-        return (s / random_sum * fac + cte);
+    /**
+     * Function to culculate the Robust Initial Enhancement (RIE)
+     * @param alpha coefficient alpha
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return RIE, in the range from 0 to +Inf.
+     */
+    public double rie(double alpha, boolean decreasing) {
+        return evaluate(decreasing, new RIEAccumulator(alpha))[0];
     }
 
-    /*
-     * Calculate a enrichment factor for the highly-ranked compounds
-     * Ref.: Truchon et al. Evaluating Virtual Screening Methods: 
-     * Good and Bad Metrics for the "Early Recognition" Problem.
-     * J. Chem. Inf. Model. (2007) 47, 488-508.
+    /**
+     * Function to culculate the Robust Initial Enhancement (RIE)
+     * @param alpha coefficient alpha
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @param ties AVERAGE for the expected value over the orderings of ties
+     * @return RIE, in the range from 0 to +Inf.
+     */
+    public double rie(double alpha, boolean decreasing, TiePolicy ties) {
+        return evaluate(decreasing, new RIEAccumulator(alpha, ties))[0];
+    }
+
+    /**
+     * Boltzmann-Enhanced Discrimination of ROC (BEDROC)
+     * @param alpha coefficient alpha
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return BEDROC, in the range from 0 to 1.
+     */
+    public double bedroc(double alpha, boolean decreasing) {
+        return evaluate(decreasing, new BEDROCAccumulator(alpha))[0];
+    }
+
+    /**
+     * Boltzmann-Enhanced Discrimination of ROC (BEDROC)
+     * @param alpha coefficient alpha
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @param ties AVERAGE for the expected value over the orderings of ties
+     * @return BEDROC, in the range from 0 to 1.
      */
+    public double bedroc(double alpha, boolean decreasing, TiePolicy ties) {
+        return evaluate(decreasing, new BEDROCAccumulator(alpha, ties))[0];
+    }
 
     /**
      * Function to calculate the enrichment factor (EF)
@@ -181,293 +381,85 @@ public class EnrichmentAssessment {
      * @param decreasing TRUE if the compounds are ranked by decreasing score
      * @return EF, in the range from 0 to +Inf.
      */
-    
     public double enrichment_factor(double top, boolean decreasing) {
-        if (scores.length != lables.length) {
-            System.err.println("The number of scores must be equal to the number of labels.");
-            return -1.0f;
-        }
-        double N = lables.length;
-        if (DEBUG) {
-            System.err.println("N: " + N);
-        }
-        double n = getPositiveHitsSum(lables);
-        if (DEBUG) {
-            System.err.println("n: " + n);
-        }
-
-        double x_prev = Double.NEGATIVE_INFINITY;
-        double fp = 0.0d, tp = 0.0d, fp_prev = 0.0d, tp_prev = 0.0d;
-
-        int[] order;
-        if (decreasing) {
-            order = getDecreasingOdering(scores);
-        } else {
-            order = getIncreasingOdering(scores);
-        }
-
-        if (DEBUG) {
-            System.err.println("Rank order: " + order.length);
-        }
-
-        for (int i : order) {
-            int j = order[i];
-            if (scores[j] != x_prev) {
-                if (fp + tp >= N * top) {
-                    double n_right = ((fp - fp_prev) + (tp - tp_prev));
-                    double rat = (N * top - (fp_prev + tp_prev)) / n_right;
-                    double tp_r = tp_prev + rat * (tp - tp_prev);
-                    return ((tp_r / (N * top)) / (n / N));
-                }
-                x_prev = scores[j];
-                fp_prev = fp;
-                tp_prev = tp;
-            }
-            if (lables[j]) {
-                tp = tp + 1;
-            } else {
-                fp = fp + 1;
-            }
-        }
-        //  n_right <- (fp - fp_prev) + (tp - tp_prev)
-        return (1);
+        return evaluate(decreasing, new EnrichmentFactorAccumulator(top))[0];
     }
 
-    /*
-     * Calculate the AUC of ROC curve for ranked compounds
-     * Ref.: Tom Fawcett, An introduction to ROC analysis. 
-     * Pattern Recognition Letters 27, 861-874 (2006)
-     */
-
     /**
      * Function to calculate the Area Under the ROC Curve (AUC)
      * @param top threshold ratio of the false positives (when ROC analysis is performed on a top list)
      * @param decreasing TRUE if the compounds are ranked by decreasing score
      * @return AUC, in the range from 0 to 1.
      */
-    
     public double auc(double top, boolean decreasing) {
-        if (scores.length != lables.length) {
-            System.err.println("The number of scores must be equal to the number of labels.");
-            return -1.0f;
-        }
-        double N = lables.length;
-        if (DEBUG) {
-            System.err.println("N: " + N);
-        }
-        double n = getPositiveHitsSum(lables);
-        if (DEBUG) {
-            System.err.println("n: " + n);
-        }
-
-        double x_prev = Double.NEGATIVE_INFINITY;
-        double fp = 0.0d, tp = 0.0d, fp_prev = 0.0d, tp_prev = 0.0d;
-        double area = 0.0d;
-        int[] order;
-        if (decreasing) {
-            order = getDecreasingOdering(scores);
-        } else {
-            order = getIncreasingOdering(scores);
-        }
-
-        if (DEBUG) {
-            System.err.println("Rank order: " + order.length);
-        }
-
-        for (int i : order) {
-            int j = order[i];
-            if (scores[j] != x_prev) {
-                if (fp >= (N - n) * top) {
-                    double rat = ((N - n) * top - fp_prev) / (fp - fp_prev);
-                    area = area + rat * (fp - fp_prev) * (tp + tp_prev) / 2.0d;
-                    return (area / (n * (N - n) * top));
-                }
-                area = area + (fp - fp_prev) * (tp + tp_prev) / 2.0d;
-                x_prev = scores[j];
-                fp_prev = fp;
-                tp_prev = tp;
-            }
-            if (lables[j]) {
-                tp = tp + 1;
-            } else {
-                fp = fp + 1;
-            }
-        }
-        area = area + (fp - fp_prev) * (tp + tp_prev) / 2.0d;
-        return (area / (n * (N - n)));
+        return evaluate(decreasing, new AUCAccumulator(top))[0];
     }
 
-    /*
-     * Calculate the Area Under the Accumulation Curve (AUAC)
-     * Ref.: Tom Fawcett, An introduction to ROC analysis. 
-     * Pattern Recognition Letters 27, 861-874 (2006)
-     */
-
     /**
      * Function to calculate the Area Under the Accumulation Curve (AUAC)
      * @param top threshold ratio of the false positives (when ROC analysis is performed on a top list)
      * @param decreasing TRUE if the compounds are ranked by decreasing score
      * @return AUAC, in the range from 0 to 1.
      */
-    
     public double auac(double top, boolean decreasing) {
-        if (scores.length != lables.length) {
-            System.err.println("The number of scores must be equal to the number of labels.");
-            return -1.0f;
-        }
-        double N = lables.length;
-        if (DEBUG) {
-            System.err.println("N: " + N);
-        }
-        double n = getPositiveHitsSum(lables);
-        if (DEBUG) {
-            System.err.println("n: " + n);
-        }
-
-        double x_prev = Double.NEGATIVE_INFINITY;
-        double fp = 0.0d, tp = 0.0d, fp_prev = 0.0d, tp_prev = 0.0d;
-        double area = 0.0d;
-        int[] order;
-        if (decreasing) {
-            order = getDecreasingOdering(scores);
-        } else {
-            order = getIncreasingOdering(scores);
-        }
-
-        if (DEBUG) {
-            System.err.println("Rank order: " + order.length);
-        }
-
-        for (int i : order) {
-            int j = order[i];
-            if (scores[j] != x_prev) {
-                if (fp + tp >= N * top) {
-                    double n_right = (fp - fp_prev) + (tp - tp_prev);
-                    double rat = (N * top - (fp_prev + tp_prev)) / n_right;
-                    area = area + rat * n_right * (tp + tp_prev) / 2.0d;
-                    return (area / (n * N * top));
-                }
-                double n_right = (fp - fp_prev) + (tp - tp_prev);
-                area = area + n_right * (tp + tp_prev) / 2.0d;
-                x_prev = scores[j];
-                fp_prev = fp;
-                tp_prev = tp;
-            }
-            if (lables[j]) {
-                tp = tp + 1;
-            } else {
-                fp = fp + 1;
-            }
-        }
-        double n_right = (fp - fp_prev) + (tp - tp_prev);
-        area = area + n_right * (tp + tp_prev) / 2.0d;
-        return (area / (n * N));
+        return evaluate(decreasing, new AUACAccumulator(top))[0];
     }
 
-    private double getPositiveHitsSum(boolean[] lables) {
-        double count = 0;
-        for (boolean b : lables) {
-            if (b) {
-                count++;
-            }
-        }
-        return count;
+    /**
+     * Function to calculate the area under the precision-recall curve (PR-AUC)
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return PR-AUC, in the range from 0 to 1.
+     */
+    public double pr_auc(boolean decreasing) {
+        return evaluate(decreasing, new PRAUCAccumulator())[0];
     }
 
-    private double getPositiveHitsCount(boolean[] lables) {
-        double count = 0;
-        for (boolean b : lables) {
-            if (b) {
-                count++;
-            }
-        }
-        return count;
+    /**
+     * Function to calculate the area under the semi-log ROC curve (logAUC)
+     * @param lambda lowest false positive rate considered (usually 0.001)
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return logAUC, in the range from 0 to 1.
+     */
+    public double log_auc(double lambda, boolean decreasing) {
+        return evaluate(decreasing, new LogAUCAccumulator(lambda))[0];
     }
 
-    private int[] getPositiveHitsRankedIndex(int[] order, boolean[] lables) {
-        List<Integer> posIndexList = new LinkedList<>();
-        for (int i = 0; i < lables.length; i++) {
-            if (lables[i]) {
-                posIndexList.add(order[i]);
-            }
-        }
-        int[] posIndex = new int[posIndexList.size()];
-        for (int i = 0; i < posIndexList.size(); i++) {
-            posIndex[i] = posIndexList.get(i);
-        }
-        return posIndex;
+    /**
+     * Function to calculate the ROC enrichment (ROCE) at a false positive rate
+     * @param fpr false positive rate, e.g. 0.005, 0.01, 0.02 or 0.05
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return ROCE, in the range from 0 to 1 / fpr.
+     */
+    public double roc_enrichment(double fpr, boolean decreasing) {
+        return evaluate(decreasing, new ROCEnrichmentAccumulator(fpr))[0];
     }
 
-    /*
-     Returns the index of scores in desceding order
+    /**
+     * Function to calculate the sum of the log ranks of the actives
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return sum of log ranks, in the range from ln(n!) to +Inf.
      */
-    int[] getDecreasingOdering(double[] scores) {
-        NaturalRanking naturalRanking = new NaturalRanking(NaNStrategy.FIXED,
-                TiesStrategy.AVERAGE);
-//        System.out.println("scores " + Arrays.toString(scores));
-        final double[] ranks = naturalRanking.rank(scores);
-//        System.out.println("ranks " + Arrays.toString(ranks));
-        boolean[] visitorFlag = new boolean[scores.length];
-        for (int i = 0; i < scores.length; i++) {
-            visitorFlag[i] = false;
-        }
-        double[] sortedArray = ranks.clone();
-        Arrays.sort(sortedArray);
-
-        /*
-         Reverse the array to make it in descending order
-         */
-        for (int i = 0; i < sortedArray.length / 2; i++) {
-            double temp = sortedArray[i];
-            sortedArray[i] = sortedArray[sortedArray.length - i - 1];
-            sortedArray[sortedArray.length - i - 1] = temp;
-        }
-
-        //System.out.println("sortedArray " + Arrays.toString(sortedArray));
-        final int[] rankIndex = new int[scores.length];
-        for (int i = sortedArray.length - 1; i >= 0; i--) {
-            double value = sortedArray[i];
-            int index = getIndex(visitorFlag, value, ranks);
-            rankIndex[i] = index;
-            visitorFlag[index] = true;
-        }
-        return rankIndex;
+    public double sum_log_rank(boolean decreasing) {
+        return evaluate(decreasing, new SumLogRankAccumulator())[0];
     }
 
-    /*
-     Returns the index of scores in ascending order
+    /**
+     * Function to calculate the sum of the log ranks of the actives
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @param ties AVERAGE for the expected value over the orderings of ties
+     * @return sum of log ranks, in the range from ln(n!) to +Inf.
      */
-    int[] getIncreasingOdering(double[] scores) {
-        NaturalRanking naturalRanking = new NaturalRanking(NaNStrategy.FIXED,
-                TiesStrategy.AVERAGE);
-//        System.out.println("scores " + Arrays.toString(scores));
-        final double[] ranks = naturalRanking.rank(scores);
-//        System.out.println("ranks " + Arrays.toString(ranks));
-        boolean[] visitorFlag = new boolean[scores.length];
-        for (int i = 0; i < scores.length; i++) {
-            visitorFlag[i] = false;
-        }
-        double[] sortedArray = ranks.clone();
-        Arrays.sort(sortedArray);
-
-        //System.out.println("sortedArray " + Arrays.toString(sortedArray));
-        final int[] rankIndex = new int[scores.length];
-        for (int i = sortedArray.length - 1; i >= 0; i--) {
-            double value = sortedArray[i];
-            int index = getIndex(visitorFlag, value, ranks);
-            rankIndex[i] = index;
-            visitorFlag[index] = true;
-        }
-        return rankIndex;
+    public double sum_log_rank(boolean decreasing, TiePolicy ties) {
+        return evaluate(decreasing, new SumLogRankAccumulator(ties))[0];
     }
 
-    int getIndex(boolean[] b, double value, double[] ranks) {
-        for (int i = 0; i < ranks.length; i++) {
-            if (ranks[i] == value && !b[i]) {
-                return i;
+    private int getPositiveHitsCount(boolean[] lables) {
+        int count = 0;
+        for (boolean b : lables) {
+            if (b) {
+                count++;
             }
         }
-        return -1;
+        return count;
     }
 }
-
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, content-addressed cache of rankings and metric values.
+ *
+ * Entries are keyed by a 128-bit hash of the scores and labels plus the
+ * ranking direction, so a repeated evaluation of the same data costs one hash
+ * pass and a memory-mapped read instead of a sort. Metric values are stored
+ * per {@link enrichvs.metrics.MetricAccumulator#key()}, which carries the
+ * metric parameters (alpha, top, ...).
+ *
+ * The directory is bounded to a maximum size; the least recently used files
+ * are evicted first, and temporary files left behind by an interrupted write
+ * are swept once stale. Any I/O failure is logged and treated as a cache miss.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class ResultCache {
+
+    private static final Logger LOG = Logger.getLogger(ResultCache.class.getName());
+    private static final int MAGIC = 0x45415652;
+    private static final int VERSION = 2;
+    private static final int HEADER = 3 * Integer.BYTES;
+    private static final String RANKING = ".rank";
+    private static final String METRICS = ".metrics";
+    private static final String TEMPORARY = ".tmp";
+    private static final long STALE_MILLIS = 60 * 60 * 1000L;
+    private static final int WINDOW = 1 << 28;
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     *
+     * @param directory cache directory, created if missing
+     * @param maxBytes upper bound on the total size of the cache files
+     */
+    public ResultCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.log(Level.WARNING, "Cannot create cache directory {0}", directory);
+        }
+    }
+
+    /**
+     * Content key of a data set ranked in the given direction.
+     *
+     * @param scores {-99.9,90.0,-98.0}
+     * @param lables {true,false,true....}
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return hex key
+     */
+    public static String key(double[] scores, boolean[] lables, boolean decreasing) {
+        long h1 = 0x9E3779B97F4A7C15L ^ scores.length;
+        long h2 = 0xC2B2AE3D27D4EB4FL ^ lables.length;
+        int length = Math.min(scores.length, lables.length);
+        for (int i = 0; i < length; i++) {
+            long bits = Double.doubleToLongBits(scores[i]);
+            long label = lables[i] ? 0x27D4EB2F165667C5L : 0x165667B19E3779F9L;
+            h1 = Long.rotateLeft(h1 ^ (bits * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL + label;
+            h2 = Long.rotateLeft(h2 ^ (bits * 0x4CF5AD432745937FL), 27) * 0x87C37B91114253D5L + (label ^ h1);
+        }
+        return String.format("%016x%016x%s", mix(h1), mix(h2), decreasing ? "d" : "i");
+    }
+
+    /*
+     * Murmur3 64-bit finaliser
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     *
+     * @param key content key
+     * @param N expected number of compounds
+     * @return index of the compound at every rank, or null if absent or not a
+     * permutation of 0..N-1
+     */
+    public synchronized int[] getRanking(String key, int N) {
+        File file = new File(directory, key + RANKING);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            int[] header = new int[HEADER / Integer.BYTES];
+            read(channel, 0L, header);
+            if (header[0] != MAGIC || header[1] != VERSION || header[2] != N) {
+                LOG.log(Level.WARNING, "Discarding mismatching cache entry {0}", file);
+                return null;
+            }
+            if (channel.size() != HEADER + (long) Integer.BYTES * N) {
+                LOG.log(Level.WARNING, "Discarding truncated cache entry {0}", file);
+                return null;
+            }
+            int[] order = new int[N];
+            read(channel, HEADER, order);
+            if (!isPermutation(order)) {
+                LOG.log(Level.WARNING, "Discarding corrupt cache entry {0}", file);
+                return null;
+            }
+            touch(file);
+            return order;
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Cannot read cache entry " + file, ex);
+            return null;
+        }
+    }
+
+    /**
+     *
+     * @param key content key
+     * @param order index of the compound at every rank
+     */
+    public synchronized void putRanking(String key, int[] order) {
+        File file = new File(directory, key + RANKING);
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(key, TEMPORARY, directory);
+            try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+                    FileChannel channel = raf.getChannel()) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                buffer.asIntBuffer().put(MAGIC).put(VERSION).put(order.length);
+                buffer.position(HEADER);
+                write(channel, buffer, order);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Cannot write cache entry " + file, ex);
+            return;
+        } finally {
+            delete(tmp);
+        }
+        evict();
+    }
+
+    /**
+     *
+     * @param key content key
+     * @param metrics metric keys
+     * @return cached values in the order of the metric keys, or null unless
+     * all of them are cached
+     */
+    public synchronized double[] getMetrics(String key, String[] metrics) {
+        File file = new File(directory, key + METRICS);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = load(file);
+        double[] values = new double[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            String value = metrics[i] == null ? null : properties.getProperty(metrics[i]);
+            if (value == null) {
+                return null;
+            }
+            values[i] = Double.parseDouble(value);
+        }
+        touch(file);
+        return values;
+    }
+
+    /**
+     *
+     * @param key content key
+     * @param metrics metric keys, null entries are skipped
+     * @param values metric values
+     */
+    public synchronized void putMetrics(String key, String[] metrics, double[] values) {
+        File file = new File(directory, key + METRICS);
+        Properties properties = file.isFile() ? load(file) : new Properties();
+        for (int i = 0; i < metrics.length; i++) {
+            if (metrics[i] != null) {
+                properties.setProperty(metrics[i], Double.toString(values[i]));
+            }
+        }
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(key, TEMPORARY, directory);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                properties.store(out, null);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Cannot write cache entry " + file, ex);
+            return;
+        } finally {
+            delete(tmp);
+        }
+        evict();
+    }
+
+    private static boolean isPermutation(int[] order) {
+        boolean[] seen = new boolean[order.length];
+        for (int i : order) {
+            if (i < 0 || i >= order.length || seen[i]) {
+                return false;
+            }
+            seen[i] = true;
+        }
+        return true;
+    }
+
+    /*
+     * Reads big-endian ints from the given offset through read-only mappings
+     * of at most WINDOW bytes, so entries beyond 2GB can be read as well
+     */
+    private static void read(FileChannel channel, long position, int[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            int length = Math.min(values.length - offset, WINDOW / Integer.BYTES);
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    (long) Integer.BYTES * length).asIntBuffer();
+            ints.get(values, offset, length);
+            offset += length;
+            position += (long) Integer.BYTES * length;
+        }
+    }
+
+    /*
+     * Appends the values to the buffer, writing it out whenever it fills up
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (buffer.remaining() < Integer.BYTES) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            int length = Math.min(values.length - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + Integer.BYTES * length);
+            offset += length;
+        }
+    }
+
+    private static void delete(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            LOG.log(Level.WARNING, "Cannot delete {0}", file);
+        }
+    }
+
+    private Properties load(File file) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Cannot read cache entry " + file, ex);
+        }
+        return properties;
+    }
+
+    private void touch(File file) {
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            LOG.log(Level.FINE, "Cannot touch cache entry {0}", file);
+        }
+    }
+
+    /*
+     * Deletes stale temporary files, then the least recently used entries
+     * until the cache fits maxBytes; temporary files still being written by
+     * another process count towards the total
+     */
+    private void evict() {
+        long stale = System.currentTimeMillis() - STALE_MILLIS;
+        File[] temporary = directory.listFiles((dir, name) -> name.endsWith(TEMPORARY));
+        long total = 0L;
+        if (temporary != null) {
+            for (File file : temporary) {
+                long length = file.length();
+                if (file.lastModified() >= stale || !file.delete()) {
+                    total += length;
+                }
+            }
+        }
+        File[] files = directory.listFiles((dir, name)
+                -> name.endsWith(RANKING) || name.endsWith(METRICS));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs;
+
+import enrichvs.metrics.AUCAccumulator;
+import enrichvs.metrics.BEDROCAccumulator;
+import enrichvs.metrics.MetricAccumulator;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Smoke test of the result cache: hits, misses, corrupt entries and
+ * eviction, in a temporary directory.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class TestResultCache {
+
+    private static int failures = 0;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        File directory = null;
+        try {
+            directory = Files.createTempDirectory("eavs-cache").toFile();
+            DataSet dataSet = DataSet.read(new File("data/dud_egfr.csv"));
+            double[] scores = dataSet.getScores();
+            boolean[] lables = dataSet.getLables();
+            ResultCache cache = new ResultCache(directory, 64L << 20);
+            String key = ResultCache.key(scores, lables, false);
+
+            double[] first = new EnrichmentAssessment(scores, lables, cache).evaluate(false, metrics(0.05d, 20.0d));
+            expect(cache.getMetrics(key, keys(metrics(0.05d, 20.0d))) != null, "metric values are stored");
+            expect(cache.getRanking(key, scores.length) != null, "ranking is stored");
+            // without the ranking, a hit must be served from the stored values alone
+            File ranking = new File(directory, key + ".rank");
+            Files.delete(ranking.toPath());
+            double[] second = new EnrichmentAssessment(scores, lables, cache).evaluate(false, metrics(0.05d, 20.0d));
+            expect(Arrays.equals(first, second) && !ranking.exists(), "a second assessment hits with identical values");
+            expect(cache.getMetrics(key, keys(metrics(0.10d, 20.0d))) == null, "a different top misses");
+            expect(cache.getMetrics(key, keys(metrics(0.05d, 10.0d))) == null, "a different alpha misses");
+            expect(cache.getRanking(ResultCache.key(scores, lables, true), scores.length) == null,
+                    "the other direction misses");
+
+            new EnrichmentAssessment(scores, lables, cache).evaluate(false, metrics(0.10d, 10.0d));
+            expect(ranking.exists(), "a miss stores the ranking again");
+
+            // an index outside [0, N) in the stored order
+            try (RandomAccessFile raf = new RandomAccessFile(ranking, "rw")) {
+                raf.seek(raf.length() - Integer.BYTES);
+                raf.writeInt(scores.length + 5);
+            }
+            expect(cache.getRanking(key, scores.length) == null, "a corrupt ranking is a miss");
+            double[] fresh = new EnrichmentAssessment(scores, lables).evaluate(false, metrics(0.20d, 5.0d));
+            double[] rebuilt = new EnrichmentAssessment(scores, lables, cache).evaluate(false, metrics(0.20d, 5.0d));
+            expect(Arrays.equals(fresh, rebuilt), "a corrupt ranking is rebuilt");
+
+            long maxBytes = 1L << 20;
+            File small = new File(directory, "small");
+            ResultCache bounded = new ResultCache(small, maxBytes);
+            Random random = new Random(1);
+            boolean bounds = true;
+            for (int i = 0; i < 8; i++) {
+                double[] s = random.doubles(50000).toArray();
+                boolean[] l = new boolean[s.length];
+                l[i] = true;
+                new EnrichmentAssessment(s, l, bounded).evaluate(false, metrics(0.05d, 20.0d));
+                bounds &= size(small) <= maxBytes;
+            }
+            expect(bounds, "eviction keeps the cache within maxBytes");
+        } catch (IOException ex) {
+            Logger.getLogger(TestResultCache.class.getName()).log(Level.SEVERE, null, ex);
+            failures++;
+        } finally {
+            delete(directory);
+        }
+        System.out.println(failures == 0 ? "Done" : "Failed: " + failures);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static MetricAccumulator[] metrics(double top, double alpha) {
+        return new MetricAccumulator[]{new AUCAccumulator(top), new BEDROCAccumulator(alpha)};
+    }
+
+    private static String[] keys(MetricAccumulator[] metrics) {
+        String[] keys = new String[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            keys[i] = metrics[i].key();
+        }
+        return keys;
+    }
+
+    private static long size(File directory) {
+        long size = 0L;
+        for (File file : directory.listFiles()) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static void delete(File file) {
+        if (file == null) {
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void expect(boolean ok, String check) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "OK   " : "FAIL ") + check);
+    }
+}
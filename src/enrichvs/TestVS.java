@@ -25,18 +25,24 @@
  */
 package enrichvs;
 
-import java.io.BufferedReader;
+import enrichvs.metrics.AUACAccumulator;
+import enrichvs.metrics.AUCAccumulator;
+import enrichvs.metrics.BEDROCAccumulator;
+import enrichvs.metrics.EnrichmentFactorAccumulator;
+import enrichvs.metrics.LogAUCAccumulator;
+import enrichvs.metrics.PRAUCAccumulator;
+import enrichvs.metrics.RIEAccumulator;
+import enrichvs.metrics.ROCEnrichmentAccumulator;
+import enrichvs.metrics.SumLogRankAccumulator;
+import enrichvs.metrics.TiePolicy;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import utility.DynamicArrayOfBoolean;
-import utility.DynamicArrayOfDouble;
 
 /**
  *
@@ -55,50 +61,61 @@ public class TestVS {
         DecimalFormat decimalFormat = (DecimalFormat) NumberFormat.getNumberInstance(locale);
         decimalFormat.applyPattern(pattern);
 
-        DynamicArrayOfDouble energy = new DynamicArrayOfDouble();
-        DynamicArrayOfBoolean flags = new DynamicArrayOfBoolean();
-
-        int index = 0;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String header = br.readLine();
-            String line = "";
-            String cvsSplitBy = ",";
-
-            while ((line = br.readLine()) != null) {
-                // use comma as separator
-                String[] country = line.split(cvsSplitBy);
-                // System.out.println(Arrays.toString(country));
-
-                energy.put(index, Double.parseDouble(country[1]));
-                boolean parseBoolean = false;
-                if (Integer.parseInt(country[2]) == 1) {
-                    parseBoolean = true;
-                }
-                flags.put(index, parseBoolean);
-                index++;
-            }
+        DataSet dataSet = new DataSet(new double[0], new boolean[0]);
+        try {
+            dataSet = DataSet.read(file);
         } catch (FileNotFoundException ex) {
             Logger.getLogger(TestVS.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
             Logger.getLogger(TestVS.class.getName()).log(Level.SEVERE, null, ex);
         }
 
-        double[] energies = energy.getArray();
-        boolean[] boolArrays = flags.getArray();
+        double[] energies = dataSet.getScores();
+        boolean[] boolArrays = dataSet.getLables();
 
-        System.out.println("Number of data points: " + index);
+        System.out.println("Number of data points: " + dataSet.size());
 
         EnrichmentAssessment virtualScreening = new EnrichmentAssessment(energies, boolArrays);
-        // Expected Bedroc 0.591155 (decreasing=FALSE), 0.3848914 (decreasing=TRUE)
-        System.out.println("Virtual Screening BEDROC: " + decimalFormat.format(virtualScreening.bedroc(0.20d, false)));
+        double[] metrics = virtualScreening.evaluate(false,
+                new BEDROCAccumulator(0.20d),
+                new EnrichmentFactorAccumulator(0.05d),
+                new RIEAccumulator(0.20d),
+                new AUACAccumulator(0.05d),
+                new AUCAccumulator(0.05d),
+                new PRAUCAccumulator(),
+                new LogAUCAccumulator(0.001d),
+                new ROCEnrichmentAccumulator(0.005d),
+                new ROCEnrichmentAccumulator(0.01d),
+                new ROCEnrichmentAccumulator(0.02d),
+                new ROCEnrichmentAccumulator(0.05d),
+                new SumLogRankAccumulator());
+        /*
+         * BEDROC and RIE depend on the order of tied scores: R's order() keeps
+         * ties in input order, this ranking puts them in reverse input order,
+         * so the values differ from enrichvs in the 4th-5th digit
+         */
+        // Expected Bedroc 0.591155 (decreasing=FALSE), 0.3848914 (decreasing=TRUE); gives 0.591344
+        System.out.println("Virtual Screening BEDROC: " + decimalFormat.format(metrics[0]));
         // Expected Enrichment_factor 3.108108 (decreasing=FALSE), 1.891892 (decreasing=TRUE)
-        System.out.println("Virtual Screening EF: " + decimalFormat.format(virtualScreening.enrichment_factor(0.05d, false)));
-        // Expected Enrichment_factor 1.021421 (decreasing=FALSE), 0.980375 (decreasing=TRUE)
-        System.out.println("Virtual Screening RIE: " + decimalFormat.format(virtualScreening.rie(0.20d, false)));
+        System.out.println("Virtual Screening EF: " + decimalFormat.format(metrics[1]));
+        // Expected RIE 1.021421 (decreasing=FALSE), 0.980375 (decreasing=TRUE); gives 1.0214586, 0.9804108
+        System.out.println("Virtual Screening RIE: " + decimalFormat.format(metrics[2]));
         // Expected Enrichment_factor 0.07586939 (decreasing=FALSE), 0.05835606 (decreasing=TRUE)
-        System.out.println("Virtual Screening AUAC: " + decimalFormat.format(virtualScreening.auac(0.05d, false)));
+        System.out.println("Virtual Screening AUAC: " + decimalFormat.format(metrics[3]));
         // Expected Enrichment_factor 0.07668251 (decreasing=FALSE), 0.05862467 (decreasing=TRUE)
-        System.out.println("Virtual Screening AUC: " + decimalFormat.format(virtualScreening.auc(0.05d, false)));
+        System.out.println("Virtual Screening AUC: " + decimalFormat.format(metrics[4]));
+        System.out.println("Virtual Screening PR-AUC: " + decimalFormat.format(metrics[5]));
+        System.out.println("Virtual Screening logAUC: " + decimalFormat.format(metrics[6]));
+        System.out.println("Virtual Screening ROCE 0.5%: " + decimalFormat.format(metrics[7]));
+        System.out.println("Virtual Screening ROCE 1%: " + decimalFormat.format(metrics[8]));
+        System.out.println("Virtual Screening ROCE 2%: " + decimalFormat.format(metrics[9]));
+        System.out.println("Virtual Screening ROCE 5%: " + decimalFormat.format(metrics[10]));
+        System.out.println("Virtual Screening Sum log rank: " + decimalFormat.format(metrics[11]));
+        // Expected values over all orderings of tied scores
+        System.out.println("Virtual Screening BEDROC (ties averaged): "
+                + decimalFormat.format(virtualScreening.bedroc(0.20d, false, TiePolicy.AVERAGE)));
+        System.out.println("Virtual Screening RIE (ties averaged): "
+                + decimalFormat.format(virtualScreening.rie(0.20d, false, TiePolicy.AVERAGE)));
 
         System.out.println("Done");
     }
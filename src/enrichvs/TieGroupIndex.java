@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs;
+
+import java.util.Arrays;
+
+/**
+ * Ranked order of the compounds together with its tie groups (runs of equal
+ * scores): where every group starts and how many actives it holds. Built once
+ * per ranking, so that metrics can work group by group in O(N).
+ *
+ * Within a tie group the compounds are in reverse input order, in either
+ * direction, as ranked by earlier releases; NaN scores are ranked last, each
+ * in its own group. Note that R's order(), used by enrichvs, keeps ties in
+ * input order instead.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class TieGroupIndex {
+
+    private static final int INSERTION_SORT = 32;
+    private final int[] order;
+    private final int[] starts;
+    private final int[] actives;
+
+    private TieGroupIndex(int[] order, int[] starts, int[] actives) {
+        this.order = order;
+        this.starts = starts;
+        this.actives = actives;
+    }
+
+    /**
+     * Ranks the compounds and indexes the tie groups
+     *
+     * @param scores {-99.9,90.0,-98.0}
+     * @param lables {true,false,true....}
+     * @param decreasing TRUE if the compounds are ranked by decreasing score
+     * @return index
+     */
+    public static TieGroupIndex build(double[] scores, boolean[] lables, boolean decreasing) {
+        int N = scores.length;
+        int[] order = new int[N];
+        int ranked = 0;
+        /*
+         * The sort is stable: filling in input order and reversing afterwards
+         * leaves ties in reverse input order for decreasing scores, filling in
+         * reverse input order does so for increasing scores
+         */
+        for (int k = 0; k < N; k++) {
+            int i = decreasing ? k : N - 1 - k;
+            if (!Double.isNaN(scores[i])) {
+                order[ranked++] = i;
+            }
+        }
+        int nan = ranked;
+        for (int i = 0; i < N; i++) {
+            if (Double.isNaN(scores[i])) {
+                order[nan++] = i;
+            }
+        }
+        sort(order, new int[ranked], 0, ranked, scores);
+        if (decreasing) {
+            for (int i = 0, j = ranked - 1; i < j; i++, j--) {
+                int temp = order[i];
+                order[i] = order[j];
+                order[j] = temp;
+            }
+        }
+        return fromOrder(order, scores, lables);
+    }
+
+    /**
+     * Indexes the tie groups of an existing ranking
+     *
+     * @param order index of the compound at every rank
+     * @param scores {-99.9,90.0,-98.0}
+     * @param lables {true,false,true....}
+     * @return index
+     */
+    public static TieGroupIndex fromOrder(int[] order, double[] scores, boolean[] lables) {
+        int N = order.length;
+        int[] starts = new int[N + 1];
+        int[] actives = new int[N];
+        int groups = 0;
+        int i = 0;
+        while (i < N) {
+            starts[groups] = i;
+            double x = scores[order[i]];
+            int tp = 0;
+            do {
+                if (lables[order[i]]) {
+                    tp++;
+                }
+                i++;
+            } while (i < N && scores[order[i]] == x);
+            actives[groups++] = tp;
+        }
+        starts[groups] = N;
+        return new TieGroupIndex(order, Arrays.copyOf(starts, groups + 1), Arrays.copyOf(actives, groups));
+    }
+
+    /*
+     * Stable merge sort of the indices in a[lo, hi) by ascending score
+     */
+    private static void sort(int[] a, int[] tmp, int lo, int hi, double[] scores) {
+        if (hi - lo <= INSERTION_SORT) {
+            for (int i = lo + 1; i < hi; i++) {
+                int x = a[i];
+                int j = i - 1;
+                while (j >= lo && scores[a[j]] > scores[x]) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = x;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(a, tmp, lo, mid, scores);
+        sort(a, tmp, mid, hi, scores);
+        if (scores[a[mid - 1]] <= scores[a[mid]]) {
+            return;
+        }
+        System.arraycopy(a, lo, tmp, lo, hi - lo);
+        int left = lo, right = mid;
+        for (int k = lo; k < hi; k++) {
+            if (right >= hi || (left < mid && scores[tmp[left]] <= scores[tmp[right]])) {
+                a[k] = tmp[left++];
+            } else {
+                a[k] = tmp[right++];
+            }
+        }
+    }
+
+    /**
+     *
+     * @return index of the compound at every rank
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     *
+     * @return number of tie groups
+     */
+    public int groups() {
+        return actives.length;
+    }
+
+    /**
+     *
+     * @param group tie group
+     * @return number of compounds ranked ahead of the group
+     */
+    public int start(int group) {
+        return starts[group];
+    }
+
+    /**
+     *
+     * @param group tie group
+     * @return number of compounds in the group
+     */
+    public int size(int group) {
+        return starts[group + 1] - starts[group];
+    }
+
+    /**
+     *
+     * @param group tie group
+     * @return number of actives in the group
+     */
+    public int actives(int group) {
+        return actives[group];
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.ingest;
+
+import enrichvs.DataSet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Reads a directory of per-ligand (or per-batch) docking result files into a
+ * {@link DataSet}.
+ *
+ * The directory walk feeds a bounded queue of paths, drained by a fixed
+ * number of virtual threads, so that many small files are open at once
+ * without unbounded concurrency. Every worker appends to its own
+ * {@link ScoreCollector.Buffer}, and the records of a file are kept only if
+ * the whole file is read, so a skipped file contributes no records; a
+ * compound is labelled active when its id is in the set of active ids.
+ * Records are ordered by the position of their file in the directory walk,
+ * then by their order within the file, so that for an unchanged directory the
+ * ranking of tied scores (and the cache key) is the same on every run.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class ResultIngestor {
+
+    private static final Logger LOG = Logger.getLogger(ResultIngestor.class.getName());
+    private static final Task END = new Task(null, -1);
+    private final Set<String> activeIds;
+    private final ScoreParser parser;
+    private final int concurrency;
+
+    /*
+     * A file and its position in the walk
+     */
+    private static class Task {
+
+        private final Path file;
+        private final int ordinal;
+
+        Task(Path file, int ordinal) {
+            this.file = file;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     *
+     * @param activeIds ids of the actives; every other compound is a decoy
+     * @param parser extracts (id, score) records from a file
+     * @param concurrency number of files read at once
+     */
+    public ResultIngestor(Set<String> activeIds, ScoreParser parser, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        this.activeIds = activeIds;
+        this.parser = parser;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     *
+     * @param file one id per line; blank lines and lines starting with '#'
+     * are skipped
+     * @return ids
+     * @throws IOException
+     */
+    public static Set<String> readIds(Path file) throws IOException {
+        Set<String> ids = new HashSet<>();
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && line.charAt(0) != '#')
+                    .forEach(ids::add);
+        }
+        return ids;
+    }
+
+    /**
+     *
+     * @param directory result directory, walked recursively
+     * @param glob file name pattern, e.g. "*.pdbqt", or null for all files
+     * @return scores and labels of all records
+     * @throws IOException if the directory cannot be walked
+     */
+    public DataSet ingest(Path directory, String glob) throws IOException {
+        PathMatcher matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        ScoreCollector collector = new ScoreCollector();
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(4 * concurrency);
+        AtomicInteger files = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        Thread[] workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = Thread.ofVirtual().name("ingest-", i).start(() -> {
+                ScoreCollector.Buffer buffer = collector.newBuffer();
+                ScoreParser.RecordSink sink = (id, score) -> buffer.add(score, activeIds.contains(id));
+                try {
+                    for (Task task = queue.take(); task != END; task = queue.take()) {
+                        buffer.begin(task.ordinal);
+                        try (BufferedReader reader = Files.newBufferedReader(task.file, StandardCharsets.UTF_8)) {
+                            parser.parse(task.file, reader, sink);
+                        } catch (IOException | RuntimeException ex) {
+                            buffer.rollback();
+                            failures.incrementAndGet();
+                            LOG.log(Level.WARNING, "Skipping " + task.file, ex);
+                            continue;
+                        }
+                        buffer.commit();
+                        files.incrementAndGet();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        int ordinals = 0;
+        try {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                Iterator<Path> it = paths
+                        .filter(Files::isRegularFile)
+                        .filter(path -> matcher == null || matcher.matches(path.getFileName()))
+                        .iterator();
+                while (it.hasNext()) {
+                    queue.put(new Task(it.next(), ordinals++));
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } finally {
+                for (int i = 0; i < concurrency; i++) {
+                    queue.put(END);
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            }
+        } catch (InterruptedException ex) {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + directory);
+        }
+
+        LOG.log(Level.INFO, "Read {0} records from {1} files in {2} ({3} skipped)",
+                new Object[]{collector.size(), files.get(), directory, failures.get()});
+        return collector.toDataSet(ordinals);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.ingest;
+
+import enrichvs.DataSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers scores and labels from many threads into primitive arrays.
+ *
+ * Every thread appends to its own {@link Buffer} of fixed-size primitive
+ * chunks without synchronisation. The records of a source (a file) are
+ * bracketed by {@link Buffer#begin(int)} and {@link Buffer#commit()} or
+ * {@link Buffer#rollback()}, so a source that fails halfway contributes
+ * nothing; a buffer only remembers (ordinal, offset, length) per committed
+ * source. {@link #toDataSet()} concatenates the sources by ordinal, which
+ * makes the data set independent of thread scheduling.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class ScoreCollector {
+
+    private static final int CHUNK = 4096;
+    private final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Per-thread buffer, not thread safe
+     */
+    public class Buffer {
+
+        private final List<double[]> scores = new ArrayList<>();
+        private final List<boolean[]> lables = new ArrayList<>();
+        private int length;
+        private int start = -1;
+        private int ordinal;
+        private int[] segments = new int[3 * 16];
+        private int count;
+
+        private Buffer() {
+        }
+
+        /**
+         * Starts the records of a source
+         *
+         * @param ordinal position of the source in the output, unique and
+         * non-negative
+         */
+        public void begin(int ordinal) {
+            this.ordinal = ordinal;
+            this.start = length;
+        }
+
+        /**
+         *
+         * @param score docking score
+         * @param lable TRUE for an active
+         */
+        public void add(double score, boolean lable) {
+            int chunk = length / CHUNK;
+            if (chunk == scores.size()) {
+                scores.add(new double[CHUNK]);
+                lables.add(new boolean[CHUNK]);
+            }
+            scores.get(chunk)[length % CHUNK] = score;
+            lables.get(chunk)[length % CHUNK] = lable;
+            length++;
+        }
+
+        /**
+         * Keeps the records added since {@link #begin(int)}
+         */
+        public void commit() {
+            if (length > start) {
+                if (count == segments.length) {
+                    segments = Arrays.copyOf(segments, 2 * count);
+                }
+                segments[count++] = ordinal;
+                segments[count++] = start;
+                segments[count++] = length - start;
+                size.addAndGet(length - start);
+            }
+            start = -1;
+        }
+
+        /**
+         * Discards the records added since {@link #begin(int)}
+         */
+        public void rollback() {
+            length = start;
+            start = -1;
+        }
+    }
+
+    /**
+     *
+     * @return a new buffer for the calling thread
+     */
+    public Buffer newBuffer() {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     *
+     * @return number of committed records
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Concatenates the committed records by ordinal of their source, in the
+     * order they were added within a source; call once all threads are done
+     *
+     * @param sources number of ordinals, which must all be below it
+     * @return data set
+     */
+    public DataSet toDataSet(int sources) {
+        // buffer, segment index within it and offset in the output, by ordinal
+        Buffer[] owner = new Buffer[sources];
+        int[] segment = new int[sources];
+        for (Buffer buffer : buffers) {
+            for (int i = 0; i < buffer.count; i += 3) {
+                owner[buffer.segments[i]] = buffer;
+                segment[buffer.segments[i]] = i;
+            }
+        }
+        int N = size.get();
+        double[] scores = new double[N];
+        boolean[] lables = new boolean[N];
+        int position = 0;
+        for (int ordinal = 0; ordinal < sources; ordinal++) {
+            Buffer buffer = owner[ordinal];
+            if (buffer == null) {
+                continue;
+            }
+            int offset = buffer.segments[segment[ordinal] + 1];
+            int remaining = buffer.segments[segment[ordinal] + 2];
+            while (remaining > 0) {
+                int chunk = offset / CHUNK;
+                int length = Math.min(remaining, CHUNK - offset % CHUNK);
+                System.arraycopy(buffer.scores.get(chunk), offset % CHUNK, scores, position, length);
+                System.arraycopy(buffer.lables.get(chunk), offset % CHUNK, lables, position, length);
+                offset += length;
+                position += length;
+                remaining -= length;
+            }
+        }
+        return new DataSet(scores, lables);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Extracts (id, score) records from one docking result file.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public interface ScoreParser {
+
+    /**
+     * Receives the records of a file
+     */
+    interface RecordSink {
+
+        /**
+         *
+         * @param id compound id, matched against the ids of the actives
+         * @param score docking score
+         */
+        void accept(String id, double score);
+    }
+
+    /**
+     *
+     * @param file result file, e.g. to derive an id from its name
+     * @param reader content of the file
+     * @param sink receives the records
+     * @throws IOException
+     */
+    void parse(Path file, BufferedReader reader, RecordSink sink) throws IOException;
+
+    /**
+     * Delimited text: one "id score" record per line, separated by commas,
+     * tabs or spaces. A line holding only a score takes the file name without
+     * its last extension as id. Blank lines and lines starting with '#' are
+     * skipped, as is a first record whose score is not a number (a header);
+     * any later such line fails the file.
+     *
+     * @return parser
+     */
+    static ScoreParser delimited() {
+        return (file, reader, sink) -> {
+            String line;
+            int lineNumber = 0;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] columns = line.split("[,\\s]+");
+                String id = columns.length == 1 ? baseName(file) : columns[0];
+                String score = columns.length == 1 ? columns[0] : columns[1];
+                double value;
+                try {
+                    value = Double.parseDouble(score);
+                } catch (NumberFormatException ex) {
+                    if (first) {
+                        first = false;
+                        continue;
+                    }
+                    throw new IOException("Malformed score at line " + lineNumber + " of " + file);
+                }
+                first = false;
+                sink.accept(id, value);
+            }
+        };
+    }
+
+    /**
+     * AutoDock Vina PDBQT output: the best pose score from the first
+     * "REMARK VINA RESULT:" line, with the file name without its last extension
+     * as id.
+     *
+     * @return parser
+     */
+    static ScoreParser vina() {
+        return (file, reader, sink) -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("REMARK VINA RESULT:")) {
+                    String[] columns = line.substring(19).trim().split("\\s+");
+                    sink.accept(baseName(file), Double.parseDouble(columns[0]));
+                    return;
+                }
+            }
+        };
+    }
+
+    /**
+     *
+     * @param file path
+     * @return file name without its last extension, e.g. "lig.1_out" for
+     * "lig.1_out.pdbqt"
+     */
+    static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.ingest;
+
+import enrichvs.DataSet;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Smoke test of result directory ingestion: repeated runs over a generated
+ * directory give the same data set, and malformed files are skipped whole.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class TestResultIngestor {
+
+    private static int failures = 0;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("eavs-ingest");
+            Set<String> actives = new HashSet<>();
+            int records = generate(directory, actives);
+
+            // Vina files: one record each, scores with many ties
+            DataSet first = new ResultIngestor(actives, ScoreParser.vina(), 64).ingest(directory, "*.pdbqt");
+            expect(first.size() == 400, "every Vina file gives one record");
+            expect(count(first.getLables()) == actives.size() - 1, "dotted ids match the actives");
+            boolean same = true;
+            for (int run = 0; run < 4; run++) {
+                DataSet again = new ResultIngestor(actives, ScoreParser.vina(), 1 + 16 * run).ingest(directory, "*.pdbqt");
+                same &= Arrays.equals(first.getScores(), again.getScores())
+                        && Arrays.equals(first.getLables(), again.getLables());
+            }
+            expect(same, "repeated runs give the same data set");
+
+            // delimited files, one of them with a corrupt row and one with a bad byte
+            DataSet delimited = new ResultIngestor(actives, ScoreParser.delimited(), 8).ingest(directory, "*.csv");
+            expect(delimited.size() == records, "malformed files are skipped whole");
+            expect(Arrays.stream(delimited.getScores()).noneMatch(score -> score >= 100.0d),
+                    "no record of a malformed file is kept");
+        } catch (IOException ex) {
+            Logger.getLogger(TestResultIngestor.class.getName()).log(Level.SEVERE, null, ex);
+            failures++;
+        } finally {
+            delete(directory == null ? null : directory.toFile());
+        }
+        System.out.println(failures == 0 ? "Done" : "Failed: " + failures);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /*
+     * 400 Vina files in nested directories and 20 CSV files with a header,
+     * plus two malformed CSV files whose scores are all >= 100
+     * @return number of records in the well-formed CSV files
+     */
+    private static int generate(Path directory, Set<String> actives) throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 400; i++) {
+            Path dir = directory.resolve("batch" + i % 3).resolve("part" + i % 2);
+            Files.createDirectories(dir);
+            String id = "CHEMBL" + i + ".1";
+            if (i % 9 == 0) {
+                actives.add(id);
+            }
+            Files.writeString(dir.resolve(id + ".pdbqt"), "MODEL 1\nREMARK VINA RESULT:    -"
+                    + (5 + random.nextInt(4)) + ".0      0.000      0.000\nENDMDL\n", StandardCharsets.UTF_8);
+        }
+        // listed but never docked
+        actives.add("CHEMBL9999.1");
+
+        int records = 0;
+        for (int i = 0; i < 20; i++) {
+            StringBuilder sb = new StringBuilder("id,score\n");
+            for (int j = 0; j < 500 * i; j++) {
+                sb.append("c").append(i).append('_').append(j).append(',').append(-random.nextInt(50)).append('\n');
+                records++;
+            }
+            Files.writeString(directory.resolve("scores" + i + ".csv"), sb.toString(), StandardCharsets.UTF_8);
+        }
+        Files.writeString(directory.resolve("corrupt.csv"), "id,score\nx1,100\nx2,101\nx3,n/a\nx4,102\n",
+                StandardCharsets.UTF_8);
+        byte[] head = "id,score\ny1,100\ny2,101\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = Arrays.copyOf(head, head.length + 8);
+        System.arraycopy(new byte[]{(byte) 0xff, (byte) 0xfe, '\n', 'y', '3', ',', '1', '\n'}, 0,
+                bytes, head.length, 8);
+        Files.write(directory.resolve("encoding.csv"), bytes);
+        return records;
+    }
+
+    private static int count(boolean[] lables) {
+        int count = 0;
+        for (boolean lable : lables) {
+            if (lable) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void delete(File file) {
+        if (file == null) {
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void expect(boolean ok, String check) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "OK   " : "FAIL ") + check);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Area Under the Accumulation Curve (AUAC)
+ *
+ * Ref.: Tom Fawcett, An introduction to ROC analysis. Pattern Recognition
+ * Letters 27, 861-874 (2006)
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class AUACAccumulator implements MetricAccumulator {
+
+    private final double top;
+    private double N;
+    private double n;
+    private double fp, tp;
+    private double area;
+    private boolean done;
+    private double value;
+
+    /**
+     *
+     * @param top threshold ratio of the ranked compounds (when the analysis
+     * is performed on a top list)
+     */
+    public AUACAccumulator(double top) {
+        this.top = top;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.area = 0.0d;
+        this.done = false;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        double fp_prev = this.fp;
+        double tp_prev = this.tp;
+        this.fp += fp;
+        this.tp += tp;
+        double n_right = (this.fp - fp_prev) + (this.tp - tp_prev);
+        if (this.fp + this.tp >= N * top) {
+            double rat = (N * top - (fp_prev + tp_prev)) / n_right;
+            area = area + rat * n_right * (this.tp + tp_prev) / 2.0d;
+            value = area / (n * N * top);
+            done = true;
+            return;
+        }
+        area = area + n_right * (this.tp + tp_prev) / 2.0d;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     *
+     * @return AUAC, in the range from 0 to 1.
+     */
+    @Override
+    public double value() {
+        return done ? value : area / (n * N);
+    }
+
+    @Override
+    public String key() {
+        return "auac(top=" + top + ")";
+    }
+}
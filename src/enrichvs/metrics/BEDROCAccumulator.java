@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Boltzmann-Enhanced Discrimination of ROC (BEDROC)
+ *
+ * Ref.: Truchon et al. Evaluating Virtual Screening Methods: Good and Bad
+ * Metrics for the "Early Recognition" Problem. J. Chem. Inf. Model. (2007) 47,
+ * 488-508.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class BEDROCAccumulator extends ExponentialRankSum {
+
+    /**
+     * Ties take the ranks given by the sort ({@link TiePolicy#ORDERED})
+     *
+     * @param alpha coefficient alpha
+     */
+    public BEDROCAccumulator(double alpha) {
+        this(alpha, TiePolicy.ORDERED);
+    }
+
+    /**
+     *
+     * @param alpha coefficient alpha
+     * @param ties treatment of tied scores
+     */
+    public BEDROCAccumulator(double alpha, TiePolicy ties) {
+        super(alpha, ties);
+    }
+
+    /**
+     *
+     * @return BEDROC, in the range from 0 to 1.
+     */
+    @Override
+    public double value() {
+        double ra = n / N;
+        double ri = (N - n) / N;
+
+        double random_sum = ra * Math.exp(-alpha / N) * (1.0 - Math.exp(-alpha)) / (1.0 - Math.exp(-alpha / N));
+        double fac = ra * Math.sinh(alpha / 2.0) / (Math.cosh(alpha / 2.0) - Math.cosh(alpha / 2.0 - alpha * ra));
+        double cte = 1.0 / (1 - Math.exp(alpha * ri));
+        return (s / random_sum * fac + cte);
+    }
+
+    @Override
+    public String key() {
+        return key("bedroc");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Enrichment factor (EF)
+ *
+ * Ref.: Truchon et al. Evaluating Virtual Screening Methods: Good and Bad
+ * Metrics for the "Early Recognition" Problem. J. Chem. Inf. Model. (2007) 47,
+ * 488-508.
+ *
+ * The tie group straddling the cutoff is interpolated linearly, which is the
+ * expected number of actives above the cutoff over all orderings of the
+ * ties, so EF does not depend on the input order under either
+ * {@link TiePolicy}.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class EnrichmentFactorAccumulator implements MetricAccumulator {
+
+    private final double top;
+    private double N;
+    private double n;
+    private double fp, tp;
+    private boolean done;
+    private double value;
+
+    /**
+     *
+     * @param top threshold ratio of the ranked compounds (when the analysis
+     * is performed on a top list)
+     */
+    public EnrichmentFactorAccumulator(double top) {
+        this.top = top;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.done = false;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        double fp_prev = this.fp;
+        double tp_prev = this.tp;
+        this.fp += fp;
+        this.tp += tp;
+        if (this.fp + this.tp >= N * top) {
+            double n_right = ((this.fp - fp_prev) + (this.tp - tp_prev));
+            double rat = (N * top - (fp_prev + tp_prev)) / n_right;
+            double tp_r = tp_prev + rat * (this.tp - tp_prev);
+            value = (tp_r / (N * top)) / (n / N);
+            done = true;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     *
+     * @return EF, in the range from 0 to +Inf.
+     */
+    @Override
+    public double value() {
+        return done ? value : 1.0d;
+    }
+
+    @Override
+    public String key() {
+        return "enrichment_factor(top=" + top + ")";
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Sum of exp(-alpha * rank / N) over the actives, shared by RIE and BEDROC.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+abstract class ExponentialRankSum implements MetricAccumulator {
+
+    protected final double alpha;
+    protected final TiePolicy ties;
+    protected double N;
+    protected double n;
+    protected double s;
+
+    ExponentialRankSum(double alpha, TiePolicy ties) {
+        this.alpha = alpha;
+        this.ties = ties;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.s = 0.0d;
+    }
+
+    @Override
+    public void active(int rank) {
+        if (ties == TiePolicy.ORDERED) {
+            s += Math.exp(-alpha * rank / N);
+        }
+    }
+
+    /*
+     * Every active of a group of g ties is at each rank position + 1 ..
+     * position + g with probability 1 / g; the geometric series sums in
+     * closed form.
+     */
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        if (ties == TiePolicy.AVERAGE && tp > 0) {
+            int g = tp + fp;
+            double series = Math.exp(-alpha * (position + 1) / N)
+                    * Math.expm1(-alpha * g / N) / Math.expm1(-alpha / N);
+            s += tp * series / g;
+        }
+    }
+
+    /**
+     *
+     * @param name metric name
+     * @return cache key with the parameters
+     */
+    protected String key(String name) {
+        return name + "(alpha=" + alpha + (ties == TiePolicy.ORDERED ? "" : ",ties=average") + ")";
+    }
+}
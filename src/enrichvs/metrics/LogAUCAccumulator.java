@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Area under the semi-log ROC curve (logAUC), the true positive rate
+ * integrated over log10 of the false positive rate from lambda to 1 and
+ * normalised by log10(1 / lambda). A random ranking scores
+ * (1 - lambda) / ln(1 / lambda), about 0.145 for lambda = 0.001.
+ *
+ * Ref.: Mysinger and Shoichet, Rapid Context-Dependent Ligand Desolvation in
+ * Molecular Docking. J. Chem. Inf. Model. (2010) 50, 1561-1573.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class LogAUCAccumulator implements MetricAccumulator {
+
+    private final double lambda;
+    private double N;
+    private double n;
+    private double fp, tp;
+    private double area;
+
+    /**
+     *
+     * @param lambda lowest false positive rate considered, in (0, 1)
+     */
+    public LogAUCAccumulator(double lambda) {
+        if (!(lambda > 0.0d && lambda < 1.0d)) {
+            throw new IllegalArgumentException("lambda must be in (0, 1): " + lambda);
+        }
+        this.lambda = lambda;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.area = 0.0d;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        double fp_prev = this.fp;
+        double tp_prev = this.tp;
+        this.fp += fp;
+        this.tp += tp;
+        if (fp == 0) {
+            return;
+        }
+        double x0 = fp_prev / (N - n);
+        double x1 = this.fp / (N - n);
+        if (x1 <= lambda) {
+            return;
+        }
+        double y0 = tp_prev / n;
+        double y1 = this.tp / n;
+        double slope = (y1 - y0) / (x1 - x0);
+        if (x0 < lambda) {
+            y0 = y0 + slope * (lambda - x0);
+            x0 = lambda;
+        }
+        /*
+         * Exact integral of the linear segment y = y0 + slope * (x - x0)
+         * over d(log10 x)
+         */
+        area = area + ((y0 - slope * x0) * Math.log(x1 / x0) + slope * (x1 - x0)) / Math.log(10.0d);
+    }
+
+    /**
+     *
+     * @return logAUC, in the range from 0 to 1.
+     */
+    @Override
+    public double value() {
+        return area / Math.log10(1.0d / lambda);
+    }
+
+    @Override
+    public String key() {
+        return "log_auc(lambda=" + lambda + ")";
+    }
+}
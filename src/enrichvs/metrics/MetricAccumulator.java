@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * A metric fed by a single ranked traversal of the compounds.
+ *
+ * The traversal walks the compounds from the best to the worst score and
+ * hands every accumulator the same sequence of tie groups (compounds sharing
+ * one score), so that any combination of metrics costs one sort and one pass.
+ *
+ * For every tie group the traversal first reports each active compound with
+ * {@link #active(int)} and then the group totals with
+ * {@link #tieGroup(int, int, int)}. Once {@link #isDone()} returns true the
+ * accumulator is no longer fed.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public interface MetricAccumulator {
+
+    /**
+     * Resets the accumulator before a traversal.
+     *
+     * @param N total number of compounds
+     * @param n number of actives (positive labels)
+     */
+    void begin(int N, int n);
+
+    /**
+     * Called for every active compound in ranked order.
+     *
+     * @param rank 1-based rank of the active compound
+     */
+    default void active(int rank) {
+    }
+
+    /**
+     * Called once per tie group, after its actives have been reported.
+     *
+     * @param position number of compounds ranked ahead of this group
+     * @param tp number of actives (true positives) in this group
+     * @param fp number of inactives (false positives) in this group
+     */
+    void tieGroup(int position, int tp, int fp);
+
+    /**
+     *
+     * @return true if no further tie groups are needed
+     */
+    default boolean isDone() {
+        return false;
+    }
+
+    /**
+     *
+     * @return the metric value for the traversal so far
+     */
+    double value();
+
+    /**
+     * Identifies the metric and its parameters, e.g. "auc(top=0.05)", so
+     * that its value can be cached.
+     *
+     * @return cache key, or null if the value must not be cached
+     */
+    default String key() {
+        return null;
+    }
+}
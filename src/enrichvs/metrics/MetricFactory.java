@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates accumulators from the specifications returned by
+ * {@link MetricAccumulator#key()}, e.g. "bedroc(alpha=20.0,ties=average)" or
+ * "pr_auc". An omitted parameter takes the default of the enrichvs package in
+ * R; "ties" selects the {@link TiePolicy} of rie, bedroc and sum_log_rank.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public final class MetricFactory {
+
+    private MetricFactory() {
+    }
+
+    /**
+     *
+     * @param spec metric name, optionally followed by "(parameter=value,...)"
+     * @return a new accumulator
+     * @throws IllegalArgumentException if the metric or parameter is unknown
+     */
+    public static MetricAccumulator create(String spec) {
+        String name = spec.trim();
+        Map<String, String> parameters = new HashMap<>();
+        int open = name.indexOf('(');
+        if (open >= 0) {
+            if (!name.endsWith(")")) {
+                throw new IllegalArgumentException("Malformed metric: " + spec);
+            }
+            String arguments = name.substring(open + 1, name.length() - 1).trim();
+            name = name.substring(0, open).trim();
+            if (!arguments.isEmpty()) {
+                for (String argument : arguments.split(",")) {
+                    int eq = argument.indexOf('=');
+                    if (eq < 0) {
+                        throw new IllegalArgumentException("Malformed metric: " + spec);
+                    }
+                    parameters.put(argument.substring(0, eq).trim(), argument.substring(eq + 1).trim());
+                }
+            }
+        }
+
+        MetricAccumulator metric;
+        switch (name) {
+            case "auc":
+                metric = new AUCAccumulator(number(parameters, "top", 1.0d));
+                break;
+            case "auac":
+                metric = new AUACAccumulator(number(parameters, "top", 1.0d));
+                break;
+            case "enrichment_factor":
+                metric = new EnrichmentFactorAccumulator(number(parameters, "top", 0.01d));
+                break;
+            case "rie":
+                metric = new RIEAccumulator(number(parameters, "alpha", 20.0d), ties(parameters));
+                break;
+            case "bedroc":
+                metric = new BEDROCAccumulator(number(parameters, "alpha", 20.0d), ties(parameters));
+                break;
+            case "log_auc":
+                metric = new LogAUCAccumulator(number(parameters, "lambda", 0.001d));
+                break;
+            case "roc_enrichment":
+                metric = new ROCEnrichmentAccumulator(number(parameters, "fpr", 0.01d));
+                break;
+            case "pr_auc":
+                metric = new PRAUCAccumulator();
+                break;
+            case "sum_log_rank":
+                metric = new SumLogRankAccumulator(ties(parameters));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown metric: " + spec);
+        }
+        if (!parameters.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameter " + parameters.keySet() + " in metric: " + spec);
+        }
+        return metric;
+    }
+
+    private static double number(Map<String, String> parameters, String name, double defaultValue) {
+        String value = parameters.remove(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static TiePolicy ties(Map<String, String> parameters) {
+        String value = parameters.remove("ties");
+        return value == null ? TiePolicy.ORDERED : TiePolicy.parse(value);
+    }
+}
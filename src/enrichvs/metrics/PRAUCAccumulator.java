@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * Area under the precision-recall curve (PR-AUC), estimated as the average
+ * precision: the precision at the end of every tie group weighted by the
+ * recall gained in that group.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class PRAUCAccumulator implements MetricAccumulator {
+
+    private double n;
+    private double fp, tp;
+    private double area;
+
+    @Override
+    public void begin(int N, int n) {
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.area = 0.0d;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        this.fp += fp;
+        this.tp += tp;
+        if (tp > 0) {
+            area = area + (tp / n) * (this.tp / (this.tp + this.fp));
+        }
+    }
+
+    /**
+     *
+     * @return PR-AUC, in the range from 0 to 1.
+     */
+    @Override
+    public double value() {
+        return area;
+    }
+
+    @Override
+    public String key() {
+        return "pr_auc()";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+import utility.DynamicArrayOfDouble;
+
+/**
+ * Collects the ROC curve, one point per tie group, from (0, 0) to (1, 1).
+ *
+ * Ref.: Tom Fawcett, An introduction to ROC analysis. Pattern Recognition
+ * Letters 27, 861-874 (2006)
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class ROCCurveAccumulator implements MetricAccumulator {
+
+    private double N;
+    private double n;
+    private double fp, tp;
+    private double area;
+    private int points;
+    private DynamicArrayOfDouble fpr;
+    private DynamicArrayOfDouble tpr;
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.area = 0.0d;
+        this.fpr = new DynamicArrayOfDouble();
+        this.tpr = new DynamicArrayOfDouble();
+        this.fpr.put(0, 0.0d);
+        this.tpr.put(0, 0.0d);
+        this.points = 1;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        double tp_prev = this.tp;
+        this.fp += fp;
+        this.tp += tp;
+        area = area + fp * (this.tp + tp_prev) / 2.0d;
+        this.fpr.put(points, this.fp / (N - n));
+        this.tpr.put(points, this.tp / n);
+        points++;
+    }
+
+    /**
+     *
+     * @return false positive rates of the curve points
+     */
+    public double[] getFalsePositiveRates() {
+        return fpr.getArray();
+    }
+
+    /**
+     *
+     * @return true positive rates of the curve points
+     */
+    public double[] getTruePositiveRates() {
+        return tpr.getArray();
+    }
+
+    /**
+     *
+     * @return AUC of the whole curve, in the range from 0 to 1.
+     */
+    @Override
+    public double value() {
+        return area / (n * (N - n));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+/**
+ * ROC enrichment (ROCE): the true positive rate divided by the false positive
+ * rate, read off the ROC curve at a fixed false positive rate (typically 0.5%,
+ * 1%, 2% or 5%).
+ *
+ * Ref.: Jain and Nicholls, Recommendations for evaluation of computational
+ * methods. J. Comput. Aided Mol. Des. (2008) 22, 133-139.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class ROCEnrichmentAccumulator implements MetricAccumulator {
+
+    private final double fpr;
+    private double N;
+    private double n;
+    private double fp, tp;
+    private boolean done;
+    private double value;
+
+    /**
+     *
+     * @param fpr false positive rate at which the enrichment is read, in (0, 1]
+     */
+    public ROCEnrichmentAccumulator(double fpr) {
+        if (!(fpr > 0.0d && fpr <= 1.0d)) {
+            throw new IllegalArgumentException("fpr must be in (0, 1]: " + fpr);
+        }
+        this.fpr = fpr;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.N = N;
+        this.n = n;
+        this.fp = 0.0d;
+        this.tp = 0.0d;
+        this.done = false;
+    }
+
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        double fp_prev = this.fp;
+        double tp_prev = this.tp;
+        this.fp += fp;
+        this.tp += tp;
+        double fp_top = (N - n) * fpr;
+        if (this.fp >= fp_top) {
+            double rat = (fp_top - fp_prev) / (this.fp - fp_prev);
+            double tp_r = tp_prev + rat * (this.tp - tp_prev);
+            value = (tp_r / n) / fpr;
+            done = true;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     *
+     * @return ROCE, in the range from 0 to 1 / fpr.
+     */
+    @Override
+    public double value() {
+        return done ? value : 1.0d / fpr;
+    }
+
+    @Override
+    public String key() {
+        return "roc_enrichment(fpr=" + fpr + ")";
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.metrics;
+
+import org.apache.commons.math3.special.Gamma;
+
+/**
+ * Sum of the natural logarithms of the 1-based ranks of the actives. Lower is
+ * better; the best possible value is ln(n!).
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class SumLogRankAccumulator implements MetricAccumulator {
+
+    private final TiePolicy ties;
+    private double s;
+
+    /**
+     * Ties take the ranks given by the sort ({@link TiePolicy#ORDERED})
+     */
+    public SumLogRankAccumulator() {
+        this(TiePolicy.ORDERED);
+    }
+
+    /**
+     *
+     * @param ties treatment of tied scores
+     */
+    public SumLogRankAccumulator(TiePolicy ties) {
+        this.ties = ties;
+    }
+
+    @Override
+    public void begin(int N, int n) {
+        this.s = 0.0d;
+    }
+
+    @Override
+    public void active(int rank) {
+        if (ties == TiePolicy.ORDERED) {
+            s += Math.log(rank);
+        }
+    }
+
+    /*
+     * ln((position + 1) * .. * (position + g)) shared by the tp actives of
+     * the group
+     */
+    @Override
+    public void tieGroup(int position, int tp, int fp) {
+        if (ties == TiePolicy.AVERAGE && tp > 0) {
+            int g = tp + fp;
+            s += tp * (Gamma.logGamma(position + g + 1.0d) - Gamma.logGamma(position + 1.0d)) / g;
+        }
+    }
+
+    /**
+     *
+     * @return sum of log ranks, in the range from ln(n!) to +Inf.
+     */
+    @Override
+    public double value() {
+        return s;
+    }
+
+    @Override
+    public String key() {
+        return ties == TiePolicy.ORDERED ? "sum_log_rank()" : "sum_log_rank(ties=average)";
+    }
+}
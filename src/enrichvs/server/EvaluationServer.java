@@ -0,0 +1,608 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import enrichvs.DataSet;
+import enrichvs.EnrichmentAssessment;
+import enrichvs.ingest.ResultIngestor;
+import enrichvs.ingest.ScoreParser;
+import enrichvs.metrics.MetricAccumulator;
+import enrichvs.metrics.MetricFactory;
+import enrichvs.metrics.ROCCurveAccumulator;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+/**
+ * Local HTTP/JSON evaluation service.
+ *
+ * Data sets are uploaded or registered once and kept resident as ranked
+ * {@link EnrichmentAssessment} views, so that repeated queries pay neither
+ * CSV parsing, sorting nor JIT warm-up. Requests run on virtual threads; the
+ * resident data sets are bounded in memory and the least recently used ones
+ * are evicted first. A data set is ranked in both directions when it is
+ * stored, so queries only read the rankings.
+ *
+ * <pre>
+ * POST   /datasets/{name}               upload CSV body (id,score,label)
+ * POST   /datasets/{name}?path=file.csv register a CSV file under the data root
+ * POST   /datasets/{name}?dir=results&amp;actives=actives.txt[&amp;glob=*.pdbqt&amp;format=vina]
+ *                                       register a directory of result files
+ *                                       under the data root
+ * GET    /datasets                      list resident data sets
+ * DELETE /datasets/{name}
+ * GET    /datasets/{name}/metrics?metric=bedroc(alpha=20)&amp;metric=auc&amp;decreasing=true
+ * GET    /datasets/{name}/curve?decreasing=true
+ * GET    /datasets/{name}/bootstrap?metric=bedroc&amp;replicates=1000&amp;seed=1
+ * </pre>
+ *
+ * Files and directories can only be registered from below the data root given
+ * at start-up, and not at all without one. Error responses do not repeat the
+ * content of the files.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class EvaluationServer {
+
+    private static final Logger LOG = Logger.getLogger(EvaluationServer.class.getName());
+    private static final String CONTEXT = "/datasets";
+    /*
+     * scores (8), labels (1) and up to two tie group indexes (2 x 12: order,
+     * group starts and active counts) per compound
+     */
+    private static final long BYTES_PER_COMPOUND = 33L;
+    /*
+     * one row of values (array header, reference and 8 per metric) plus the
+     * DescriptiveStatistics slot per bootstrap replicate
+     */
+    private static final long BYTES_PER_REPLICATE = 32L;
+    /*
+     * bootstrap work is replicates x compounds draws (~10 ns each) and cannot
+     * be cancelled, so a query is limited to seconds of work
+     */
+    private static final int MAX_REPLICATES = 100000;
+    private static final long MAX_BOOTSTRAP_DRAWS = 1000000000L;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long maxBytes;
+    private final Path dataRoot;
+    private final LinkedHashMap<String, Resident> datasets = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes = 0L;
+
+    private static class Resident {
+
+        private final EnrichmentAssessment assessment;
+        private final int size;
+        private final long bytes;
+
+        Resident(DataSet dataSet) {
+            this.assessment = new EnrichmentAssessment(dataSet.getScores(), dataSet.getLables());
+            this.size = dataSet.size();
+            this.bytes = BYTES_PER_COMPOUND * dataSet.size();
+        }
+
+        /*
+         * Ranks both directions now, not on the first query of each
+         */
+        void rank() {
+            assessment.rank(false);
+            assessment.rank(true);
+        }
+    }
+
+    /**
+     *
+     * @param port local port, 0 for any free port
+     * @param maxBytes upper bound on the memory of the resident data sets
+     * @throws IOException
+     */
+    public EvaluationServer(int port, long maxBytes) throws IOException {
+        this(port, maxBytes, null);
+    }
+
+    /**
+     *
+     * @param port local port, 0 for any free port
+     * @param maxBytes upper bound on the memory of the resident data sets
+     * @param dataRoot directory below which files and directories may be
+     * registered, or null to accept uploads only
+     * @throws IOException if the server cannot bind or the data root does not
+     * exist
+     */
+    public EvaluationServer(int port, long maxBytes, Path dataRoot) throws IOException {
+        this.maxBytes = maxBytes;
+        this.dataRoot = dataRoot == null ? null : dataRoot.toRealPath();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(executor);
+        this.server.createContext(CONTEXT, this::handle);
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public void start() {
+        server.start();
+        LOG.log(Level.INFO, "Serving on http://{0}:{1}{2}",
+                new Object[]{server.getAddress().getHostString(), Integer.toString(getPort()), CONTEXT});
+    }
+
+    /**
+     * Stops the server and releases the resident data sets
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        synchronized (datasets) {
+            datasets.clear();
+            residentBytes = 0L;
+        }
+    }
+
+    /**
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Keeps a data set resident, replacing any previous one of that name
+     *
+     * @param name data set name
+     * @param dataSet scores and labels
+     * @throws IllegalArgumentException if the data set alone exceeds the
+     * memory bound
+     */
+    public void register(String name, DataSet dataSet) {
+        keep(name, dataSet);
+    }
+
+    private Resident keep(String name, DataSet dataSet) {
+        Resident resident = new Resident(dataSet);
+        if (resident.bytes > maxBytes) {
+            throw new TooLargeException("Data set " + name + " needs " + resident.bytes
+                    + " bytes, more than the limit of " + maxBytes);
+        }
+        resident.rank();
+        synchronized (datasets) {
+            Resident previous = datasets.put(name, resident);
+            if (previous != null) {
+                residentBytes -= previous.bytes;
+            }
+            residentBytes += resident.bytes;
+            Iterator<Map.Entry<String, Resident>> it = datasets.entrySet().iterator();
+            while (residentBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Resident> eldest = it.next();
+                if (eldest.getValue() == resident) {
+                    continue;
+                }
+                residentBytes -= eldest.getValue().bytes;
+                it.remove();
+                LOG.log(Level.INFO, "Evicted data set {0}", eldest.getKey());
+            }
+        }
+        return resident;
+    }
+
+    private Resident lookup(String name) {
+        synchronized (datasets) {
+            return datasets.get(name);
+        }
+    }
+
+    private boolean remove(String name) {
+        synchronized (datasets) {
+            Resident removed = datasets.remove(name);
+            if (removed != null) {
+                residentBytes -= removed.bytes;
+            }
+            return removed != null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            // the context matches any path with this prefix, e.g. /datasetsX
+            if (!path.equals(CONTEXT) && !path.startsWith(CONTEXT + "/")) {
+                throw new NotFoundException("Unknown path: " + path);
+            }
+            path = path.substring(CONTEXT.length());
+            String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+            Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            if (segments.length == 1 && segments[0].isEmpty()) {
+                requireMethod(method, "GET");
+                send(exchange, 200, list());
+            } else if (segments.length == 1) {
+                String name = segments[0];
+                switch (method) {
+                    case "POST":
+                    case "PUT":
+                        send(exchange, 201, upload(name, exchange, query));
+                        break;
+                    case "DELETE":
+                        if (!remove(name)) {
+                            throw new NotFoundException("Unknown data set: " + name);
+                        }
+                        send(exchange, 200, "{\"deleted\":" + quote(name) + "}");
+                        break;
+                    case "GET":
+                        send(exchange, 200, describe(name, resident(name)));
+                        break;
+                    default:
+                        throw new MethodException(method);
+                }
+            } else if (segments.length == 2) {
+                requireMethod(method, "GET");
+                Resident resident = resident(segments[0]);
+                boolean decreasing = Boolean.parseBoolean(first(query, "decreasing", "false"));
+                switch (segments[1]) {
+                    case "metrics":
+                        send(exchange, 200, metrics(resident, decreasing, query));
+                        break;
+                    case "curve":
+                        send(exchange, 200, curve(resident, decreasing));
+                        break;
+                    case "bootstrap":
+                        send(exchange, 200, bootstrap(resident, decreasing, query));
+                        break;
+                    default:
+                        throw new NotFoundException("Unknown query: " + segments[1]);
+                }
+            } else {
+                throw new NotFoundException("Unknown path: " + path);
+            }
+        } catch (NotFoundException ex) {
+            send(exchange, 404, error(ex.getMessage()));
+        } catch (ForbiddenException ex) {
+            send(exchange, 403, error(ex.getMessage()));
+        } catch (TooLargeException ex) {
+            send(exchange, 413, error(ex.getMessage()));
+        } catch (MethodException ex) {
+            send(exchange, 405, error(ex.getMessage()));
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, error(ex.getMessage()));
+        } catch (IOException | RuntimeException ex) {
+            // details (paths, file content) go to the log only
+            LOG.log(Level.SEVERE, null, ex);
+            send(exchange, 500, error("Internal error: " + ex.getClass().getSimpleName()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String upload(String name, HttpExchange exchange, Map<String, List<String>> query) throws IOException {
+        DataSet dataSet;
+        String file = first(query, "path", null);
+        String dir = first(query, "dir", null);
+        if (dir != null) {
+            dataSet = ingest(resolve(dir), query);
+        } else if (file != null) {
+            Path csv = resolve(file);
+            if (!Files.isRegularFile(csv)) {
+                throw new IllegalArgumentException("No such file: " + file);
+            }
+            dataSet = DataSet.read(csv.toFile());
+        } else {
+            try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                dataSet = DataSet.read(reader);
+            }
+        }
+        return describe(name, keep(name, dataSet));
+    }
+
+    private DataSet ingest(Path dir, Map<String, List<String>> query) throws IOException {
+        String actives = first(query, "actives", null);
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("No such directory: " + first(query, "dir", null));
+        }
+        if (actives == null || !Files.isRegularFile(resolve(actives))) {
+            throw new IllegalArgumentException("An actives file (one id per line) is required: " + actives);
+        }
+        ScoreParser parser;
+        String format = first(query, "format", "delimited");
+        switch (format) {
+            case "delimited":
+                parser = ScoreParser.delimited();
+                break;
+            case "vina":
+                parser = ScoreParser.vina();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        int concurrency = Integer.parseInt(first(query, "concurrency", "256"));
+        ResultIngestor ingestor = new ResultIngestor(ResultIngestor.readIds(resolve(actives)), parser, concurrency);
+        return ingestor.ingest(dir, first(query, "glob", null));
+    }
+
+    /*
+     * Path of a file or directory below the data root, relative to it or
+     * absolute; symbolic links are followed before the check
+     */
+    private Path resolve(String name) throws IOException {
+        if (dataRoot == null) {
+            throw new ForbiddenException("Registration from files is disabled, the server has no data root");
+        }
+        Path path = dataRoot.resolve(name).normalize();
+        if (Files.exists(path)) {
+            path = path.toRealPath();
+        }
+        if (!path.startsWith(dataRoot)) {
+            throw new ForbiddenException("Not below the data root: " + name);
+        }
+        return path;
+    }
+
+    private String list() {
+        StringBuilder sb = new StringBuilder("{\"datasets\":[");
+        synchronized (datasets) {
+            String separator = "";
+            for (Map.Entry<String, Resident> entry : datasets.entrySet()) {
+                sb.append(separator).append(describe(entry.getKey(), entry.getValue()));
+                separator = ",";
+            }
+            sb.append("],\"bytes\":").append(residentBytes);
+        }
+        sb.append(",\"maxBytes\":").append(maxBytes).append('}');
+        return sb.toString();
+    }
+
+    private String describe(String name, Resident resident) {
+        return "{\"name\":" + quote(name) + ",\"size\":" + resident.size + ",\"bytes\":" + resident.bytes + "}";
+    }
+
+    private String metrics(Resident resident, boolean decreasing, Map<String, List<String>> query) {
+        List<String> specs = metricSpecs(query);
+        MetricAccumulator[] metrics = create(specs);
+        double[] values = resident.assessment.evaluate(decreasing, metrics);
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < specs.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(quote(specs.get(i))).append(':').append(number(values[i]));
+        }
+        return sb.append('}').toString();
+    }
+
+    private String curve(Resident resident, boolean decreasing) {
+        ROCCurveAccumulator roc = new ROCCurveAccumulator();
+        double auc = resident.assessment.evaluate(decreasing, roc)[0];
+        return "{\"auc\":" + number(auc)
+                + ",\"fpr\":" + array(roc.getFalsePositiveRates())
+                + ",\"tpr\":" + array(roc.getTruePositiveRates()) + "}";
+    }
+
+    private String bootstrap(Resident resident, boolean decreasing, Map<String, List<String>> query) {
+        List<String> specs = metricSpecs(query);
+        int replicates = Integer.parseInt(first(query, "replicates", "1000"));
+        long seed = Long.parseLong(first(query, "seed", "1"));
+        if (replicates < 1 || replicates > MAX_REPLICATES) {
+            throw new IllegalArgumentException("replicates must be between 1 and " + MAX_REPLICATES + ": " + replicates);
+        }
+        if ((long) replicates * resident.size > MAX_BOOTSTRAP_DRAWS) {
+            throw new IllegalArgumentException("Too many replicates: " + replicates + " x " + resident.size
+                    + " compounds exceed " + MAX_BOOTSTRAP_DRAWS + " draws");
+        }
+        long bytes = replicates * (BYTES_PER_REPLICATE + (long) Double.BYTES * specs.size());
+        if (bytes > maxBytes) {
+            throw new IllegalArgumentException("Too many replicates: " + replicates + " x " + specs.size()
+                    + " metrics need " + bytes + " bytes, more than the limit of " + maxBytes);
+        }
+        double[][] values = resident.assessment.bootstrap(decreasing, replicates, seed, create(specs));
+        StringBuilder sb = new StringBuilder("{\"replicates\":").append(replicates);
+        for (int k = 0; k < specs.size(); k++) {
+            DescriptiveStatistics statistics = new DescriptiveStatistics(replicates);
+            for (double[] v : values) {
+                statistics.addValue(v[k]);
+            }
+            sb.append(',').append(quote(specs.get(k))).append(":{")
+                    .append("\"mean\":").append(number(statistics.getMean()))
+                    .append(",\"sd\":").append(number(statistics.getStandardDeviation()))
+                    .append(",\"ci2.5\":").append(number(statistics.getPercentile(2.5d)))
+                    .append(",\"ci97.5\":").append(number(statistics.getPercentile(97.5d)))
+                    .append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+    private Resident resident(String name) {
+        Resident resident = lookup(name);
+        if (resident == null) {
+            throw new NotFoundException("Unknown data set: " + name);
+        }
+        return resident;
+    }
+
+    private static List<String> metricSpecs(Map<String, List<String>> query) {
+        List<String> specs = query.get("metric");
+        if (specs == null || specs.isEmpty()) {
+            throw new IllegalArgumentException("At least one metric parameter is required");
+        }
+        return specs;
+    }
+
+    private static MetricAccumulator[] create(List<String> specs) {
+        MetricAccumulator[] metrics = new MetricAccumulator[specs.size()];
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = MetricFactory.create(specs.get(i));
+        }
+        return metrics;
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new MethodException(method);
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return query;
+    }
+
+    private static String first(Map<String, List<String>> query, String key, String defaultValue) {
+        List<String> values = query.get(key);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /*
+     * JSON has no NaN or Infinity
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+    private static String array(double[] values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(number(values[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String quote(String text) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : String.valueOf(text).toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static class NotFoundException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private static class ForbiddenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ForbiddenException(String message) {
+            super(message);
+        }
+    }
+
+    private static class TooLargeException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private static class MethodException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        MethodException(String method) {
+            super("Method not allowed: " + method);
+        }
+    }
+
+    /**
+     * @param args [port [maxMegabytes [dataRoot]]]
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long maxBytes = args.length > 1
+                ? Long.parseLong(args[1]) << 20
+                : Runtime.getRuntime().maxMemory() / 2;
+        Path dataRoot = args.length > 2 ? Paths.get(args[2]) : null;
+        EvaluationServer evaluationServer = new EvaluationServer(port, maxBytes, dataRoot);
+        Runtime.getRuntime().addShutdownHook(new Thread(evaluationServer::stop));
+        evaluationServer.start();
+    }
+}
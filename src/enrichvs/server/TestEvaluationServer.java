@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015, Asad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package enrichvs.server;
+
+import enrichvs.DataSet;
+import enrichvs.EnrichmentAssessment;
+import enrichvs.metrics.MetricFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Smoke test of the evaluation service on localhost: starts a server on a
+ * free port and calls upload, metrics, curve, bootstrap and delete.
+ *
+ * @author Syed Asad Rahman <asad@ebi.ac.uk>
+ */
+public class TestEvaluationServer {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static int failures = 0;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        File file = new File("data/dud_egfr.csv");
+        EvaluationServer evaluationServer = null;
+        try {
+            evaluationServer = new EvaluationServer(0, 64L << 20, Paths.get("data"));
+            evaluationServer.start();
+            String base = "http://127.0.0.1:" + evaluationServer.getPort() + "/datasets";
+
+            expect(send("POST", base + "/egfr", HttpRequest.BodyPublishers.ofFile(file.toPath())),
+                    201, "\"size\":88888");
+            expect(send("GET", base, null), 200, "\"name\":\"egfr\"");
+            expect(send("POST", base + "/registered?path=dud_egfr.csv", HttpRequest.BodyPublishers.noBody()),
+                    201, "\"size\":88888");
+            expect(send("POST", base + "/outside?path=../build.xml", HttpRequest.BodyPublishers.noBody()),
+                    403, "Not below the data root");
+            expect(send("POST", base + "/outside?path=" + new File("build.xml").getAbsolutePath(),
+                    HttpRequest.BodyPublishers.noBody()), 403, "Not below the data root");
+            // the error names the line, but must not repeat its content
+            HttpResponse<String> malformed = send("POST", base + "/malformed",
+                    HttpRequest.BodyPublishers.ofString("id,score,label\n1,-9.5,0\nsecret,token,1\n"));
+            expect(malformed, 400, "line 3");
+            if (malformed.body().contains("secret") || malformed.body().contains("token")) {
+                failures++;
+                System.out.println("FAIL the error repeats the content of the line");
+            }
+            // 88888 compounds need about 2.9 MB, over the 1 MB bound of a second server
+            EvaluationServer small = new EvaluationServer(0, 1L << 20);
+            small.start();
+            try {
+                String smallBase = "http://127.0.0.1:" + small.getPort() + "/datasets";
+                expect(send("POST", smallBase + "/egfr", HttpRequest.BodyPublishers.ofFile(file.toPath())),
+                        413, "more than the limit");
+                expect(send("GET", smallBase, null), 200, "\"bytes\":0");
+                expect(send("POST", smallBase + "/egfr?path=data/dud_egfr.csv", HttpRequest.BodyPublishers.noBody()),
+                        403, "no data root");
+            } finally {
+                small.stop();
+            }
+
+            // metrics must match a direct evaluation of the same file
+            DataSet dataSet = DataSet.read(file);
+            double bedroc = new EnrichmentAssessment(dataSet.getScores(), dataSet.getLables())
+                    .evaluate(false, MetricFactory.create("bedroc(alpha=20)"))[0];
+            expect(send("GET", base + "/egfr/metrics?metric=bedroc(alpha=20)&metric=auc", null),
+                    200, "\"bedroc(alpha=20)\":" + bedroc);
+            expect(send("GET", base + "/egfr/curve?decreasing=true", null), 200, "\"tpr\":[");
+            expect(send("GET", base + "/egfr/bootstrap?metric=auc&replicates=50&seed=1", null),
+                    200, "\"replicates\":50");
+            expect(send("GET", base + "/egfr/bootstrap?metric=auc&replicates=2000000000", null),
+                    400, "replicates must be between");
+            expect(send("GET", base + "/egfr/bootstrap?metric=auc&replicates=100000", null),
+                    400, "draws");
+            expect(send("GET", base + "/egfr/metrics?metric=unknown", null), 400, "error");
+            expect(send("POST", base + "foo", HttpRequest.BodyPublishers.noBody()), 404, "Unknown path");
+
+            expect(send("DELETE", base + "/egfr", null), 200, "\"deleted\":\"egfr\"");
+            expect(send("GET", base + "/egfr/metrics?metric=auc", null), 404, "Unknown data set");
+        } catch (IOException | InterruptedException ex) {
+            Logger.getLogger(TestEvaluationServer.class.getName()).log(Level.SEVERE, null, ex);
+            failures++;
+        } finally {
+            if (evaluationServer != null) {
+                evaluationServer.stop();
+            }
+        }
+        System.out.println(failures == 0 ? "Done" : "Failed: " + failures);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static HttpResponse<String> send(String method, String uri, HttpRequest.BodyPublisher body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : body)
+                .build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void expect(HttpResponse<String> response, int status, String content) {
+        boolean ok = response.statusCode() == status && response.body().contains(content);
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "OK   " : "FAIL ") + response.request().method() + " "
+                + response.request().uri().getRawPath() + " -> " + response.statusCode() + " "
+                + (response.body().length() > 120 ? response.body().substring(0, 120) + "..." : response.body()));
+    }
+}